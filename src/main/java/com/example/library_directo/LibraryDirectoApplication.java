@@ -2,8 +2,10 @@ package com.example.library_directo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class LibraryDirectoApplication {
 
 	public static void main(String[] args) {
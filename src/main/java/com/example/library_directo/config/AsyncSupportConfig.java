@@ -0,0 +1,19 @@
+package com.example.library_directo.config;
+
+import com.example.library_directo.monitoring.SqlStatsAsyncInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configura el procesamiento asíncrono de Spring MVC (cuerpos en streaming).
+ * Las sentencias SQL que se ejecutan al escribir el cuerpo cuentan en el presupuesto de la petición.
+ */
+@Configuration
+public class AsyncSupportConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new SqlStatsAsyncInterceptor());
+    }
+}
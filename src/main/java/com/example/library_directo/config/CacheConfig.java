@@ -0,0 +1,61 @@
+package com.example.library_directo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la caché en memoria de la aplicación.
+ * Cada caché usa Caffeine con un tamaño máximo y un tiempo de vida propios.
+ * Los aciertos y fallos se publican en Actuator como la métrica "cache.gets".
+ * Dentro de una transacción, las invalidaciones y escrituras en caché se aplican tras el commit:
+ * si no, una lectura concurrente podría volver a cachear el valor anterior hasta que expire.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /// Caché de categorías individuales, indexada por ID
+    public static final String CATEGORIES = "categories";
+
+    /// Caché con el listado completo de categorías
+    public static final String ALL_CATEGORIES = "allCategories";
+
+    /// Caché de usuarios autenticados por JWT (rol y autoridades), indexada por email
+    public static final String PRINCIPALS = "principals";
+
+    /**
+     * Crea el gestor de cachés con la configuración de cada caché.
+     *
+     * @return CacheManager basado en Caffeine, sincronizado con las transacciones
+     */
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${app.cache.categories.max-size:1000}") long categoriesMaxSize,
+            @Value("${app.cache.categories.ttl:10m}") Duration categoriesTtl,
+            @Value("${app.cache.principals.max-size:10000}") long principalsMaxSize,
+            @Value("${app.cache.principals.ttl:5m}") Duration principalsTtl
+    ) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(CATEGORIES, buildCache(categoriesMaxSize, categoriesTtl));
+        cacheManager.registerCustomCache(ALL_CATEGORIES, buildCache(1, categoriesTtl));
+        cacheManager.registerCustomCache(PRINCIPALS, buildCache(principalsMaxSize, principalsTtl));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private Cache<Object, Object> buildCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.library_directo.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Negociación JSON/CBOR de los endpoints que declaran ambos tipos en produces.
+ * Spring MVC registra el conversor CBOR por sí solo al encontrar jackson-dataformat-cbor,
+ * siempre detrás del de JSON: un cliente sin Accept o con Accept: *&#47;* sigue recibiendo JSON
+ * y solo quien pide application/cbor recibe el mismo DTO en binario.
+ */
+public final class ContentNegotiationConfig {
+
+    /// Mismo orden que el atributo produces de los endpoints: JSON es la representación por defecto
+    private static final List<MediaType> PRODUCIBLE = List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR);
+
+    private ContentNegotiationConfig() {
+    }
+
+    /**
+     * Representación que recibirá el cliente, para incluirla en el ETag:
+     * JSON y CBOR son representaciones distintas del mismo recurso y no pueden compartir ETag.
+     * Se elige igual que Spring MVC al escribir la respuesta: se ordenan los tipos aceptados
+     * por especificidad y calidad (q) y gana el primero compatible, de modo que
+     * "application/json, application/cbor;q=0.5" recibe JSON.
+     *
+     * @param webRequest petición actual
+     * @return "cbor" si la negociación elige CBOR, "json" en otro caso
+     */
+    public static String representation(WebRequest webRequest) {
+        return MediaType.APPLICATION_CBOR.equals(negotiatedType(webRequest)) ? "cbor" : "json";
+    }
+
+    /**
+     * Tipo de la respuesta según la cabecera Accept, con el algoritmo de
+     * AbstractMessageConverterMethodProcessor restringido a JSON y CBOR.
+     *
+     * @param webRequest petición actual
+     * @return application/json o application/cbor
+     */
+    static MediaType negotiatedType(WebRequest webRequest) {
+        List<MediaType> acceptable = acceptableTypes(webRequest.getHeader(HttpHeaders.ACCEPT));
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType accepted : acceptable) {
+            for (MediaType producible : PRODUCIBLE) {
+                if (accepted.isCompatibleWith(producible)) {
+                    compatible.add(mostSpecific(accepted, producible));
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        for (MediaType candidate : compatible) {
+            if (candidate.isConcrete()) {
+                return candidate.removeQualityValue();
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    private static List<MediaType> acceptableTypes(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return new ArrayList<>(List.of(MediaType.ALL));
+        }
+        try {
+            List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(types);
+            return types;
+        } catch (InvalidMediaTypeException e) {
+            /// Spring MVC respondería 406 de todos modos; el ETag da igual
+            return new ArrayList<>(List.of(MediaType.ALL));
+        }
+    }
+
+    private static MediaType mostSpecific(MediaType accepted, MediaType producible) {
+        MediaType produced = producible.copyQualityValue(accepted);
+        return accepted.isLessSpecific(produced) ? produced : accepted;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.library_directo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publica el tiempo de retención de conexiones por endpoint.
+ * Envuelve cada pool de conexiones (el principal y, si existe, el de la réplica) con
+ * {@link MeteredDataSource}; la métrica se consulta en
+ * /actuator/metrics/db.connection.hold?tag=uri:/api/books
+ */
+@Configuration
+public class DataSourceMetricsConfig {
+
+    @Bean
+    static BeanPostProcessor connectionHoldTimeMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new MeteredDataSource(dataSource, beanName, meterRegistry);
+                }
+                return bean;
+            }
+        };
+    }
+}
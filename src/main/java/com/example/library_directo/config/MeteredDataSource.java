@@ -0,0 +1,93 @@
+package com.example.library_directo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que mide cuánto tiempo retiene cada conexión quien la pide,
+ * desde que se obtiene del pool hasta que se devuelve.
+ * El tiempo se publica en el timer "db.connection.hold", etiquetado con el pool y con el endpoint
+ * (patrón de la URI y método HTTP). Fuera de una petición (tareas programadas, arranque)
+ * las etiquetas del endpoint valen "none"; en los filtros, antes de resolver el controlador, "UNKNOWN".
+ */
+public class MeteredDataSource extends DelegatingDataSource {
+
+    public static final String CONNECTION_HOLD_METRIC = "db.connection.hold";
+
+    private final String pool;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public MeteredDataSource(DataSource targetDataSource, String pool, ObjectProvider<MeterRegistry> meterRegistry) {
+        super(targetDataSource);
+        this.pool = pool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return metered(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return metered(super.getConnection(username, password));
+    }
+
+    private Connection metered(Connection connection) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return connection;
+        }
+
+        Tags tags = currentEndpoint().and("pool", pool);
+        long start = System.nanoTime();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    /// Se registra solo el primer close(): los siguientes no devuelven nada al pool
+                    if (method.getName().equals("close") && closed.compareAndSet(false, true)) {
+                        Timer.builder(CONNECTION_HOLD_METRIC)
+                                .description("Tiempo que se retiene una conexión del pool")
+                                .tags(tags)
+                                .register(registry)
+                                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    /// Endpoint de la petición en curso en este hilo, si la hay
+    private static Tags currentEndpoint() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return Tags.of(
+                    "uri", pattern != null ? pattern.toString() : "UNKNOWN",
+                    "method", request.getMethod()
+            );
+        }
+        return Tags.of("uri", "none", "method", "none");
+    }
+}
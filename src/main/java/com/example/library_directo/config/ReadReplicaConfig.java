@@ -0,0 +1,77 @@
+package com.example.library_directo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Separación de lecturas y escrituras entre el MySQL primario y una réplica.
+ * Solo se activa si se configura app.datasource.replica.jdbc-url; sin réplica
+ * se usa el DataSource por defecto de Spring Boot.
+ * El primario se configura con spring.datasource.* y la réplica con app.datasource.replica.*
+ * (propiedades de Hikari: jdbc-url, username, password, maximum-pool-size...).
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replica", name = "jdbc-url")
+public class ReadReplicaConfig {
+
+    /**
+     * Pool de conexiones del primario (escrituras y lecturas de usuarios fijados).
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(
+            @Value("${spring.datasource.url}") String url,
+            @Value("${spring.datasource.username:}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${spring.datasource.driver-class-name:}") String driverClassName
+    ) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("primary");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        if (!driverClassName.isEmpty()) {
+            dataSource.setDriverClassName(driverClassName);
+        }
+        return dataSource;
+    }
+
+    /**
+     * Pool de conexiones de la réplica (transacciones de solo lectura).
+     */
+    @Bean
+    @ConfigurationProperties("app.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * DataSource principal de la aplicación (JPA, JdbcTemplate, Flyway).
+     * El proxy perezoso retrasa la elección de pool hasta la primera sentencia.
+     *
+     * @param pinAfterWrite tiempo durante el que un usuario lee del primario tras escribir
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${app.datasource.pin-after-write:PT5S}") Duration pinAfterWrite
+    ) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, new ReplicaLagGuard(pinAfterWrite));
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.library_directo.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Protección frente al retraso de replicación.
+ * Cuando un usuario escribe, queda fijado al primario durante un tiempo, de modo que
+ * sus lecturas siguientes ven sus propios cambios aunque la réplica aún no los tenga.
+ * Los usuarios se identifican por el nombre de la autenticación (email); las peticiones
+ * anónimas y las tareas sin usuario nunca se fijan.
+ */
+public class ReplicaLagGuard {
+
+    private final Cache<String, Boolean> pinnedUsers;
+
+    /**
+     * @param pinDuration tiempo durante el que un usuario lee del primario tras escribir
+     */
+    public ReplicaLagGuard(Duration pinDuration) {
+        this.pinnedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(pinDuration)
+                .build();
+    }
+
+    /**
+     * Fija al usuario autenticado en el primario (o renueva el plazo si ya lo estaba).
+     */
+    public void pinCurrentUser() {
+        currentUser().ifPresent(user -> pinnedUsers.put(user, Boolean.TRUE));
+    }
+
+    /**
+     * Indica si el usuario autenticado debe leer del primario.
+     *
+     * @return true si ha escrito hace menos del tiempo configurado.
+     */
+    public boolean isCurrentUserPinned() {
+        return currentUser()
+                .map(user -> pinnedUsers.getIfPresent(user) != null)
+                .orElse(false);
+    }
+
+    private static Optional<String> currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return Optional.of(authentication.getName());
+    }
+}
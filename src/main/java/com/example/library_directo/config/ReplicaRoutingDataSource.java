@@ -0,0 +1,54 @@
+package com.example.library_directo.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource que envía las transacciones de solo lectura a la réplica y el resto al primario.
+ * Debe usarse detrás de un LazyConnectionDataSourceProxy: la decisión se toma al pedir
+ * la conexión real, cuando la transacción ya ha marcado si es de solo lectura.
+ * Las escrituras fijan al usuario en el primario a través de {@link ReplicaLagGuard}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagGuard lagGuard;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagGuard lagGuard) {
+        this.lagGuard = lagGuard;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                pinAfterWrite();
+            }
+            return Route.PRIMARY;
+        }
+        return lagGuard.isCurrentUserPinned() ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    /// Fija al usuario ya y de nuevo al confirmar: el plazo cuenta desde el commit
+    private void pinAfterWrite() {
+        lagGuard.pinCurrentUser();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    lagGuard.pinCurrentUser();
+                }
+            });
+        }
+    }
+}
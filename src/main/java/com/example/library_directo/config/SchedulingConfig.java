@@ -0,0 +1,12 @@
+package com.example.library_directo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita las tareas programadas (p. ej. la detección de préstamos vencidos).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,20 +1,34 @@
 package com.example.library_directo.config;
 
 import com.example.library_directo.security.JwtAuthenticationFilter;
+import com.example.library_directo.security.RateLimitFilter;
 import com.example.library_directo.service.CustomOAuth2UserService;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.ObjectPostProcessor;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.HeaderWriterFilter;
 
 /**
  * Configuración de seguridad de la aplicación.
  * Combina OAuth2 Login (usuarios normales) con JWT (staff).
+ * Todas las peticiones pasan por el limitador de peticiones (RateLimitFilter).
+ * Actuator tiene su propia cadena: solo /actuator/health es público.
  */
 @Configuration
 @EnableWebSecurity
@@ -24,6 +38,48 @@ public class SecurityConfig {
 
     private final CustomOAuth2UserService customOAuth2UserService;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final RateLimitFilter rateLimitFilter;
+
+    /**
+     * Cadena de seguridad de Actuator, evaluada antes que la de la API.
+     * /actuator/health queda público para los balanceadores; el resto (métricas de Prometheus,
+     * cachés...) exige HTTP Basic con el usuario del scraper o un JWT de administrador.
+     * Se aplica igual si Actuator se mueve a otro puerto con management.server.port.
+     *
+     * @param httpSecurity objeto HttpSecurity para configurar
+     * @param scraperUsername usuario del scraper de Prometheus
+     * @param scraperPassword contraseña del scraper de Prometheus
+     * @return SecurityFilterChain de Actuator
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(
+            HttpSecurity httpSecurity,
+            @Value("${app.actuator.scraper.username}") String scraperUsername,
+            @Value("${app.actuator.scraper.password}") String scraperPassword
+    ) throws Exception {
+        /// Usuario propio de esta cadena: no se publica como bean ni sirve para la API
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        DaoAuthenticationProvider scraperProvider = new DaoAuthenticationProvider(new InMemoryUserDetailsManager(
+                User.withUsername(scraperUsername)
+                        .password(passwordEncoder.encode(scraperPassword))
+                        .roles("METRICS")
+                        .build()));
+        scraperProvider.setPasswordEncoder(passwordEncoder);
+
+        return httpSecurity
+                .securityMatcher("/actuator/**")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .anyRequest().hasAnyRole("METRICS", "ADMIN")
+                )
+                .authenticationManager(new ProviderManager(scraperProvider))
+                .httpBasic(Customizer.withDefaults())
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .build();
+    }
 
     /**
      * Configura la cadena de filtros de seguridad.
@@ -39,6 +95,17 @@ public class SecurityConfig {
                 /// Deshabilitar CSRF (no necesario para API REST)
                 .csrf(csrf -> csrf.disable())
 
+                /// Cabeceras de seguridad antes del controlador: en las respuestas en streaming
+                /// (/api/books/stream, /api/books/delta) el hilo asíncrono confirma la respuesta
+                /// mientras el de la petición aún recorre los filtros, y ambos escribirían cabeceras
+                .headers(headers -> headers.withObjectPostProcessor(new ObjectPostProcessor<HeaderWriterFilter>() {
+                    @Override
+                    public <O extends HeaderWriterFilter> O postProcess(O filter) {
+                        filter.setShouldWriteHeadersEagerly(true);
+                        return filter;
+                    }
+                }))
+
                 /// Configurar manejo de excepciones para API REST
                 .exceptionHandling(exception -> exception
                         .authenticationEntryPoint((request, response, authException) -> {
@@ -66,6 +133,9 @@ public class SecurityConfig {
                 .addFilterBefore(jwtAuthenticationFilter,
                         UsernamePasswordAuthenticationFilter.class)
 
+                /// Limitar peticiones por usuario (ya autenticado por JWT o sesión) o por IP
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
+
                 /// Habilitar OAuth2 Login con servicio personalizado
                 .oauth2Login(oauth2 -> oauth2
                         .userInfoEndpoint(userInfo -> userInfo
@@ -1,22 +1,46 @@
 package com.example.library_directo.controller;
 
+import com.example.library_directo.config.ContentNegotiationConfig;
+import com.example.library_directo.dto.book.BookBatchRequest;
+import com.example.library_directo.dto.book.BookBatchResult;
 import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookField;
+import com.example.library_directo.dto.book.BookPageDto;
+import com.example.library_directo.dto.book.BulkImportResult;
 import com.example.library_directo.dto.book.CreateBookRequest;
 import com.example.library_directo.dto.category.CategoryDto;
 import com.example.library_directo.entity.Book;
 import com.example.library_directo.entity.Category;
 import com.example.library_directo.entity.User;
 import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.service.BookImportService;
 import com.example.library_directo.service.BookService;
+import com.example.library_directo.service.CatalogVersion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controlador REST para gestionar libros.
@@ -29,31 +53,219 @@ public class BookController {
 
     private final BookService bookService;
     private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final BookImportService bookImportService;
+    private final CatalogVersion catalogVersion;
+
+    /// Tamaño de página por defecto y máximo permitido para el listado de libros
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /// Cabeceras de la sincronización incremental
+    private static final String DELTA_TOKEN_HEADER = "X-Delta-Token";
+    private static final String DELTA_FULL_HEADER = "X-Delta-Full";
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    /// Número de resultados por defecto y máximo de la búsqueda
+    private static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 50;
+
+    /**
+     * Obtiene una página de libros usando paginación por cursor.
+     * El tamaño de página se limita a {@value #MAX_PAGE_SIZE}.
+     * Con fields= solo se consultan y devuelven los campos pedidos (p. ej. "title,author" para listados).
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Con Accept: application/cbor la página se devuelve en CBOR en lugar de JSON.
+     *
+     * @param after ID del último libro recibido (0 o ausente para la primera página)
+     * @param size número de libros por página
+     * @param fields campos a devolver, separados por comas (opcional; el ID se incluye siempre)
+     * @return página de libros con el cursor de la siguiente página.
+     * @throws RuntimeException si se pide un campo que no existe
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<BookPageDto<?>> getAllBook(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest
+    ) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Set<BookField> selectedFields = fields != null ? BookField.parse(fields) : null;
+
+        /// Comprobar el ETag antes de consultar la BD
+        String etag = catalogVersion.etag("books", after, pageSize,
+                selectedFields != null ? BookField.signature(selectedFields) : "all",
+                ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        if (selectedFields != null) {
+            List<Map<String, Object>> content = bookService.getBookFieldsAfter(after, pageSize, selectedFields);
+            Long nextCursor = content.size() == pageSize
+                    ? (Long) content.get(content.size() - 1).get(BookField.ID.getFieldName())
+                    : null;
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(new BookPageDto<>(content, nextCursor, pageSize));
+        }
+
+        List<BookDto> content = bookService.getBooksAfter(after, pageSize);
+
+        /// Si la página está completa puede haber más libros: el cursor es el último ID
+        Long nextCursor = content.size() == pageSize
+                ? content.get(content.size() - 1).getId()
+                : null;
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(new BookPageDto<>(content, nextCursor, pageSize));
+    }
+
+    /**
+     * Exporta todo el catálogo como NDJSON (un libro JSON por línea).
+     * Los libros se leen y se escriben fila a fila, sin cargar la tabla en memoria.
+     *
+     * @return cuerpo de respuesta en streaming con todos los libros.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBooks() {
+        StreamingResponseBody body = outputStream -> bookService.streamAllBooks(book -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(book));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Sincronización incremental del catálogo para clientes offline (kioscos, apps móviles).
+     * Devuelve como NDJSON los libros creados o modificados desde el token y las lápidas de los
+     * borrados, fila a fila y comprimido con gzip si el cliente lo acepta.
+     * La cabecera X-Delta-Token trae el token para la siguiente sincronización; X-Delta-Full
+     * indica que la respuesta es el catálogo completo y el cliente debe reemplazar su copia
+     * (sin token, o con un token anterior a la retención de las lápidas).
+     *
+     * @param since token de la sincronización anterior: milisegundos desde epoch o fecha ISO-8601 (opcional)
+     * @param acceptEncoding cabecera Accept-Encoding del cliente
+     * @return cuerpo de respuesta en streaming con los cambios.
+     * @throws RuntimeException si el token no es válido
+     */
+    @GetMapping(value = "/delta", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getBooksDelta(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        LocalDateTime from = bookService.resolveDeltaSince(parseDeltaToken(since));
+
+        /// El token se fija antes de leer: lo que se confirme durante la lectura entra en la siguiente
+        long nextToken = bookService.nextDeltaToken()
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = gzip ? new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE) : outputStream;
+            bookService.streamBooksDelta(from, delta -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(delta));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (out instanceof GZIPOutputStream gzipOut) {
+                gzipOut.finish();
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .header(DELTA_TOKEN_HEADER, Long.toString(nextToken))
+                .header(DELTA_FULL_HEADER, Boolean.toString(from == null));
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
 
     /**
-     * Obtiene todos los libros del sistema
+     * Busca libros por texto libre en título, autor, editorial y descripción.
+     * Admite varios términos, prefijos ("quij") y errores tipográficos leves ("quijtoe"),
+     * e ignora mayúsculas y acentos. Admite JSON o CBOR según Accept.
      *
-     * @return lista de libros en formato DTO.
+     * @param q texto de búsqueda
+     * @param limit número máximo de resultados
+     * @return libros encontrados en formato DTO, de mayor a menor relevancia.
      */
-    @GetMapping
-    public List<BookDto> getAllBook() {
-        return bookService.getAllBooks()
-                .stream()
-                .map(this::convertToDto)
-                .toList();
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public List<BookDto> searchBooks(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit
+    ) {
+        return bookService.searchBooks(q, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
     }
 
     /**
      * Obtiene un libro específico por su ID
+     * El ETag se deriva del ID y de la fecha de última modificación, que también cambia
+     * al renombrar su categoría, y de la representación (JSON o CBOR según Accept):
+     * si coincide con el del cliente se responde 304 NOT MODIFIED sin cargar el libro.
      *
      * @param id identificador del libro
-     * @return libro en formato DTO.
-     * @throws RuntimeException si el libro no existe.
+     * @param fields campos a devolver, separados por comas (opcional; el ID se incluye siempre)
+     * @return libro en formato DTO, o solo con los campos pedidos.
+     * @throws RuntimeException si el libro no existe o se pide un campo que no existe.
      */
-    @GetMapping("/{id}")
-    public BookDto getBookById(@PathVariable Long id) {
-        Book book = bookService.getBookById(id);
-        return convertToDto(book);
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<?> getBookById(
+            @PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            WebRequest webRequest
+    ) {
+        Set<BookField> selectedFields = fields != null ? BookField.parse(fields) : null;
+        long lastModified = bookService.getBookLastModified(id)
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+
+        String etag = "\"" + id + "-" + lastModified
+                + (selectedFields != null ? "-" + BookField.signature(selectedFields) : "")
+                + "-" + ContentNegotiationConfig.representation(webRequest) + "\"";
+        if (webRequest.checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        if (selectedFields != null) {
+            return ResponseEntity.ok()
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .body(bookService.getBookFields(id, selectedFields));
+        }
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(bookService.getBookDtoById(id));
+    }
+
+    /**
+     * Obtiene varios libros de una sola vez, por ID y/o por ISBN.
+     * Sustituye a varias llamadas a GET /api/books/{id} (estanterías, listas de lectura...).
+     * Admite JSON o CBOR según Accept.
+     *
+     * @param bookBatchRequest IDs e ISBNs a buscar
+     * @return libros en el orden de la petición y los IDs e ISBNs no encontrados.
+     */
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public BookBatchResult getBooksBatch(@Valid @RequestBody BookBatchRequest bookBatchRequest) {
+        return bookService.getBooksBatch(bookBatchRequest.getIds(), bookBatchRequest.getIsbns());
     }
 
     /**
@@ -82,6 +294,28 @@ public class BookController {
         return ResponseEntity.status(HttpStatus.CREATED).body(convertToDto(book));
     }
 
+    /**
+     * Importa una lista de libros de una sola vez.
+     * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
+     * Cada fila se valida por separado: las filas con errores no impiden importar el resto.
+     *
+     * @param createBookRequests libros a importar
+     * @return resultado de cada fila, en el mismo orden que la petición
+     * @throws RuntimeException si el usuario no está autenticado
+     */
+    @PostMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<List<BulkImportResult>> importBooks(
+            @RequestBody List<CreateBookRequest> createBookRequests
+    ) {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        User currentUser = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+
+        return ResponseEntity.ok(bookImportService.importBooks(createBookRequests, currentUser));
+    }
+
     /**
      * Actualiza un libro existente.
      * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
@@ -102,6 +336,36 @@ public class BookController {
         return ResponseEntity.ok(convertToDto(book));
     }
 
+    /**
+     * Presta una copia del libro (resta una copia disponible).
+     * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
+     *
+     * @param id identificador del libro
+     * @return respuesta sin contenido con status 204 NO CONTENT
+     * @throws RuntimeException si el libro no existe o no quedan copias disponibles
+     */
+    @PostMapping("/{id}/checkout")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<Void> checkoutCopy(@PathVariable Long id) {
+        bookService.checkoutCopy(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Registra la devolución de una copia del libro (suma una copia disponible).
+     * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
+     *
+     * @param id identificador del libro
+     * @return respuesta sin contenido con status 204 NO CONTENT
+     * @throws RuntimeException si el libro no existe o ya están todas las copias disponibles
+     */
+    @PostMapping("/{id}/return")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<Void> returnCopy(@PathVariable Long id) {
+        bookService.returnCopy(id);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Elimina un libro del sistema.
      * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
@@ -119,11 +383,12 @@ public class BookController {
 
     /**
      * Convierte una entidad Book a BookDto.
+     * Visible en el paquete para los benchmarks de mapeo.
      *
      * @param book entidad a convertir
      * @return DTO con los datos del libro.
      */
-    private BookDto convertToDto(Book book) {
+    BookDto convertToDto(Book book) {
         return new BookDto(
                 book.getId(),
                 book.getIsbn(),
@@ -145,13 +410,38 @@ public class BookController {
      * @param category entidad a convertir
      * @return DTO con los datos de la categoría.
      */
-    private CategoryDto convertCategoryToDto(Category category) {
+    CategoryDto convertCategoryToDto(Category category) {
         return new CategoryDto(
                 category.getId(),
                 category.getName(),
                 category.getDescription()
         );
     }
+
+    /**
+     * Convierte el token de sincronización del cliente en una fecha.
+     * Admite los milisegundos desde epoch que devuelve X-Delta-Token o una fecha ISO-8601.
+     *
+     * @param token token del cliente (puede ser nulo)
+     * @return fecha del token, o nulo si no hay token
+     * @throws RuntimeException si el token no es válido
+     */
+    private static LocalDateTime parseDeltaToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            if (token.chars().allMatch(Character::isDigit)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(token)), ZoneId.systemDefault());
+            }
+            if (token.endsWith("Z") || token.matches(".*[+-]\\d{2}:\\d{2}$")) {
+                return LocalDateTime.ofInstant(OffsetDateTime.parse(token).toInstant(), ZoneId.systemDefault());
+            }
+            return LocalDateTime.parse(token);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new RuntimeException("Token de sincronización no válido");
+        }
+    }
 }
 
 
@@ -1,15 +1,25 @@
 package com.example.library_directo.controller;
 
+import com.example.library_directo.config.ContentNegotiationConfig;
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookPageDto;
 import com.example.library_directo.dto.category.CategoryDto;
+import com.example.library_directo.dto.category.CategorySummaryDto;
 import com.example.library_directo.dto.category.CreateCategoryRequest;
 import com.example.library_directo.entity.Category;
+import com.example.library_directo.service.BookService;
+import com.example.library_directo.service.CatalogVersion;
 import com.example.library_directo.service.CategoryService;
+import com.example.library_directo.service.CategoryStatsService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -23,31 +33,136 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
+    private final BookService bookService;
+    private final CategoryStatsService categoryStatsService;
+
+    /// Tamaño de página por defecto y máximo permitido para los libros de una categoría
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     /**
      * Obtiene todas las categorías del sistema.
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Admite JSON o CBOR según Accept.
      *
      * @return lista de categorías en formato DTO.
      */
-    @GetMapping
-    public List<CategoryDto> getAllCategories() {
-        return categoryService.getAllCategories()
-                .stream()
-                .map(this::convertToDto)
-                .toList();
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<CategoryDto>> getAllCategories(WebRequest webRequest) {
+        String etag = catalogVersion.etag("categories", ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(categoryService.getAllCategories()
+                        .stream()
+                        .map(this::convertToDto)
+                        .toList());
     }
 
     /**
      * Obtiene una categoría específica por su ID.
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Admite JSON o CBOR según Accept.
      *
      * @param id identificador de la categoría
      * @return categoría en formato DTO
      * @throws  RuntimeException si la categoría no existe.
      */
-    @GetMapping("/{id}")
-    public CategoryDto getCategoryById(@PathVariable Long id) {
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<CategoryDto> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        String etag = catalogVersion.etag("category", id, ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
         Category category = categoryService.getCategoryById(id);
-        return convertToDto(category);
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(convertToDto(category));
+    }
+
+    /**
+     * Obtiene una página de los libros de una categoría usando paginación por cursor.
+     * El tamaño de página se limita a {@value #MAX_PAGE_SIZE}.
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Con Accept: application/cbor la página se devuelve en CBOR en lugar de JSON.
+     *
+     * @param id identificador de la categoría
+     * @param after ID del último libro recibido (0 o ausente para la primera página)
+     * @param size número de libros por página
+     * @return página de libros de la categoría con el cursor de la siguiente página.
+     * @throws RuntimeException si la categoría no existe
+     */
+    @GetMapping(value = "/{id}/books", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<BookPageDto<BookDto>> getCategoryBooks(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size,
+            WebRequest webRequest
+    ) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String etag = catalogVersion.etag("category-books", id, after, pageSize,
+                ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        List<BookDto> content = bookService.getCategoryBooksAfter(id, after, pageSize);
+
+        /// Si la página está completa puede haber más libros: el cursor es el último ID
+        Long nextCursor = content.size() == pageSize
+                ? content.get(content.size() - 1).getId()
+                : null;
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(new BookPageDto<>(content, nextCursor, pageSize));
+    }
+
+    /**
+     * Obtiene el resumen (libros, copias totales y disponibles) de todas las categorías.
+     * Se lee de los contadores agregados, sin recorrer los libros.
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Admite JSON o CBOR según Accept.
+     *
+     * @return resumen de cada categoría ordenado por nombre.
+     */
+    @GetMapping(value = "/summary", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<List<CategorySummaryDto>> getSummaries(WebRequest webRequest) {
+        String etag = catalogVersion.etag("category-summaries", ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(categoryStatsService.getSummaries());
+    }
+
+    /**
+     * Obtiene el resumen (libros, copias totales y disponibles) de una categoría.
+     * Se lee de los contadores agregados, sin recorrer los libros.
+     * Responde 304 NOT MODIFIED si el catálogo no ha cambiado desde el ETag del cliente.
+     * Admite JSON o CBOR según Accept.
+     *
+     * @param id identificador de la categoría
+     * @return resumen de la categoría.
+     * @throws RuntimeException si la categoría no existe
+     */
+    @GetMapping(value = "/{id}/summary", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    public ResponseEntity<CategorySummaryDto> getSummary(@PathVariable Long id, WebRequest webRequest) {
+        String etag = catalogVersion.etag("category-summary", id, ContentNegotiationConfig.representation(webRequest));
+        if (webRequest.checkNotModified(etag, catalogVersion.lastModified())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(categoryStatsService.getSummary(id));
     }
 
     /**
@@ -98,7 +213,14 @@ public class CategoryController {
         return ResponseEntity.noContent().build();
     }
 
-    private CategoryDto convertToDto(Category category) {
+    /**
+     * Convierte una entidad Category a CategoryDto.
+     * Visible en el paquete para los benchmarks de mapeo.
+     *
+     * @param category entidad a convertir
+     * @return DTO con los datos de la categoría.
+     */
+    CategoryDto convertToDto(Category category) {
         return new CategoryDto(
                 category.getId(),
                 category.getName(),
@@ -0,0 +1,50 @@
+package com.example.library_directo.controller;
+
+import com.example.library_directo.dto.change.ChangeFeedDto;
+import com.example.library_directo.service.ChangeFeedService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+
+/**
+ * Controlador REST del feed de cambios del catálogo.
+ * Los consumidores (búsqueda, recomendaciones, cachés) leen solo lo que ha cambiado
+ * en lugar de volver a pedir los listados de libros.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    private final ChangeFeedService changeFeedService;
+
+    /// Tamaño de lote por defecto y máximo permitido
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    /**
+     * Obtiene los cambios del catálogo posteriores a una secuencia.
+     * Con wait > 0 la petición espera (long-poll) hasta que haya cambios o pase ese tiempo.
+     * Cada entidad aparece una sola vez por lote, con su último cambio.
+     *
+     * @param since última secuencia recibida (nextSince de la respuesta anterior; 0 para empezar)
+     * @param limit número máximo de cambios a leer
+     * @param wait segundos de espera si no hay cambios (0 para responder inmediatamente)
+     * @return cambios con la secuencia para la siguiente petición.
+     */
+    @GetMapping
+    public ChangeFeedDto getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "" + DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "0") long wait
+    ) {
+        return changeFeedService.getChanges(
+                since,
+                Math.max(1, Math.min(limit, MAX_LIMIT)),
+                Duration.ofSeconds(Math.max(0, wait)));
+    }
+}
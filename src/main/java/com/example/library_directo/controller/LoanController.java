@@ -0,0 +1,113 @@
+package com.example.library_directo.controller;
+
+import com.example.library_directo.dto.loan.CreateLoanRequest;
+import com.example.library_directo.dto.loan.LoanDto;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.service.LoanService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controlador REST para gestionar préstamos de libros.
+ * Proporciona endpoints para prestar, renovar y devolver libros.
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/loans")
+public class LoanController {
+
+    private final LoanService loanService;
+    private final UserRepository userRepository;
+
+    /// Tamaño de página por defecto y máximo permitido para el listado de vencidos
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Presta una copia de un libro al usuario autenticado.
+     *
+     * @param createLoanRequest libro a prestar
+     * @return préstamo creado en formato DTO con status 201 CREATED
+     * @throws RuntimeException si el libro no existe o no quedan copias disponibles
+     */
+    @PostMapping
+    public ResponseEntity<LoanDto> borrow(@Valid @RequestBody CreateLoanRequest createLoanRequest) {
+        LoanDto loan = loanService.borrow(createLoanRequest.getBookId(), getCurrentUser());
+        return ResponseEntity.status(HttpStatus.CREATED).body(loan);
+    }
+
+    /**
+     * Obtiene los préstamos en curso del usuario autenticado.
+     *
+     * @return préstamos activos o vencidos en formato DTO.
+     */
+    @GetMapping("/me")
+    public List<LoanDto> getMyLoans() {
+        return loanService.getOpenLoans(getCurrentUser());
+    }
+
+    /**
+     * Renueva un préstamo del usuario autenticado.
+     *
+     * @param id identificador del préstamo
+     * @return respuesta sin contenido con status 204 NO CONTENT
+     * @throws RuntimeException si el préstamo no se puede renovar
+     */
+    @PostMapping("/{id}/renew")
+    public ResponseEntity<Void> renew(@PathVariable Long id) {
+        loanService.renew(id, getCurrentUser());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Registra la devolución de un préstamo.
+     * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
+     *
+     * @param id identificador del préstamo
+     * @return respuesta sin contenido con status 204 NO CONTENT
+     * @throws RuntimeException si el préstamo no existe o ya estaba devuelto
+     */
+    @PostMapping("/{id}/return")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public ResponseEntity<Void> returnLoan(@PathVariable Long id) {
+        loanService.returnLoan(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Obtiene una página de préstamos vencidos usando paginación por cursor.
+     * Solo accesible por usuarios con rol ADMIN o LIBRARIAN.
+     *
+     * @param after ID del último préstamo recibido (0 o ausente para la primera página)
+     * @param size número de préstamos por página
+     * @return préstamos vencidos en formato DTO.
+     */
+    @GetMapping("/overdue")
+    @PreAuthorize("hasAnyRole('ADMIN', 'LIBRARIAN')")
+    public List<LoanDto> getOverdueLoans(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int size
+    ) {
+        return loanService.getOverdueLoans(after, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Obtiene el usuario autenticado (funciona con OAuth2 y JWT).
+     *
+     * @return usuario autenticado
+     * @throws RuntimeException si el usuario no existe
+     */
+    private User getCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.library_directo.dto.book;
+
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para pedir varios libros de una sola vez, por ID y/o por ISBN.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchRequest {
+
+    /**
+     * IDs de los libros a obtener.
+     * Máximo 200 por petición.
+     */
+    @Size(max = 200, message = "Máximo 200 IDs por petición")
+    private List<Long> ids;
+
+    /**
+     * ISBNs de los libros a obtener.
+     * Máximo 200 por petición.
+     */
+    @Size(max = 200, message = "Máximo 200 ISBNs por petición")
+    private List<String> isbns;
+}
@@ -0,0 +1,32 @@
+package com.example.library_directo.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta de la consulta de libros por lotes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookBatchResult {
+
+    /**
+     * Libros encontrados, en el orden de la petición (primero los IDs, luego los ISBNs).
+     * Cada libro aparece una sola vez aunque se pida varias veces.
+     */
+    private List<BookDto> books;
+
+    /**
+     * IDs pedidos que no corresponden a ningún libro.
+     */
+    private List<Long> missingIds;
+
+    /**
+     * ISBNs pedidos que no corresponden a ningún libro.
+     */
+    private List<String> missingIsbns;
+}
@@ -0,0 +1,52 @@
+package com.example.library_directo.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de una línea de la sincronización incremental de libros.
+ * Un UPSERT trae el libro completo; un DELETE solo el ID del libro borrado.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDeltaDto {
+
+    /**
+     * Tipo de cambio.
+     */
+    public enum Type {
+        UPSERT, DELETE
+    }
+
+    /**
+     * Tipo de cambio de la línea.
+     */
+    private Type type;
+
+    /**
+     * ID del libro.
+     */
+    private Long id;
+
+    /**
+     * Libro creado o modificado. Nulo en los borrados.
+     */
+    private BookDto book;
+
+    /**
+     * Fecha y hora del borrado. Nula en los UPSERT.
+     */
+    private LocalDateTime deletedAt;
+
+    public static BookDeltaDto upsert(BookDto book) {
+        return new BookDeltaDto(Type.UPSERT, book.getId(), book, null);
+    }
+
+    public static BookDeltaDto delete(Long id, LocalDateTime deletedAt) {
+        return new BookDeltaDto(Type.DELETE, id, null, deletedAt);
+    }
+}
@@ -75,6 +75,22 @@ public class BookDto {
      * Nombre del usuario que registró el libro en el sistema.
      */
     private String createdByName;
+
+    /**
+     * Constructor usado por las proyecciones JPQL de BookRepository.
+     * Recibe los datos de la categoría en columnas planas, ya que JPQL
+     * no permite construir el CategoryDto anidado en la consulta.
+     */
+    public BookDto(Long id, String isbn, String title, String author, String publisher,
+                   Integer publicationYear, String description, String coverImage,
+                   Integer totalCopies, Integer availableCopies,
+                   Long categoryId, String categoryName, String categoryDescription,
+                   String createdByName) {
+        this(id, isbn, title, author, publisher, publicationYear, description, coverImage,
+                totalCopies, availableCopies,
+                new CategoryDto(categoryId, categoryName, categoryDescription),
+                createdByName);
+    }
 }
 
 
@@ -0,0 +1,77 @@
+package com.example.library_directo.dto.book;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Campos de un libro que se pueden pedir con el parámetro fields= de /api/books.
+ * Los nombres coinciden con los de BookDto; el ID se incluye siempre (es el cursor de paginación).
+ */
+public enum BookField {
+
+    ID("id"),
+    ISBN("isbn"),
+    TITLE("title"),
+    AUTHOR("author"),
+    PUBLISHER("publisher"),
+    PUBLICATION_YEAR("publicationYear"),
+    DESCRIPTION("description"),
+    COVER_IMAGE("coverImage"),
+    TOTAL_COPIES("totalCopies"),
+    AVAILABLE_COPIES("availableCopies"),
+    CATEGORY("category"),
+    CREATED_BY_NAME("createdByName");
+
+    /// Nombre del campo en el JSON (y del atributo en la entidad Book para los campos simples)
+    private final String fieldName;
+
+    BookField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Convierte el parámetro fields= ("title,author,category") en el conjunto de campos.
+     *
+     * @param fields nombres de campo separados por comas
+     * @return campos pedidos, siempre con el ID
+     * @throws RuntimeException si algún campo no existe
+     */
+    public static Set<BookField> parse(String fields) {
+        Set<BookField> selected = EnumSet.of(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            selected.add(fromFieldName(trimmed));
+        }
+        return selected;
+    }
+
+    /**
+     * Representación estable de un conjunto de campos (para ETags).
+     *
+     * @param fields campos seleccionados
+     * @return nombres de campo en orden de declaración, separados por comas
+     */
+    public static String signature(Set<BookField> fields) {
+        return fields.stream()
+                .sorted()
+                .map(BookField::getFieldName)
+                .collect(Collectors.joining(","));
+    }
+
+    private static BookField fromFieldName(String fieldName) {
+        for (BookField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new RuntimeException("Campo desconocido: " + fieldName);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.library_directo.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para respuestas paginadas de libros.
+ * Usa paginación por cursor (keyset) sobre el ID del libro.
+ * El contenido son BookDto completos o, con fields=, mapas con solo los campos pedidos.
+ *
+ * @param <T> tipo de cada libro de la página
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookPageDto<T> {
+
+    /**
+     * Libros de la página actual, ordenados por ID ascendente.
+     */
+    private List<T> content;
+
+    /**
+     * Cursor para pedir la siguiente página (ID del último libro devuelto).
+     * Es nulo cuando no hay más páginas.
+     */
+    private Long nextCursor;
+
+    /**
+     * Tamaño de página aplicado.
+     */
+    private int size;
+}
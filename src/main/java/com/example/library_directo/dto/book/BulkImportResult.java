@@ -0,0 +1,46 @@
+package com.example.library_directo.dto.book;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resultado de importar una fila en la carga masiva de libros.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkImportResult {
+
+    /**
+     * Posible resultado de una fila.
+     */
+    public enum Status {
+        CREATED, INVALID, DUPLICATE_ISBN, INVALID_CATEGORY, FAILED
+    }
+
+    /**
+     * Posición de la fila en la petición (empezando en 0).
+     */
+    private int index;
+
+    /**
+     * Código ISBN de la fila.
+     */
+    private String isbn;
+
+    /**
+     * Resultado de la fila.
+     */
+    private Status status;
+
+    /**
+     * ID del libro creado. Nulo si la fila no se ha importado.
+     */
+    private Long id;
+
+    /**
+     * Motivo del error. Nulo si la fila se ha importado.
+     */
+    private String message;
+}
@@ -3,6 +3,7 @@ package com.example.library_directo.dto.book;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,6 +22,7 @@ public class CreateBookRequest {
      * Debe ser único y obligatorio
      */
     @NotBlank(message = "El ISBN es obligatorio")
+    @Size(max = 13, message = "El ISBN no puede superar los 13 caracteres")
     private String isbn;
 
     /**
@@ -28,6 +30,7 @@ public class CreateBookRequest {
      * Campo obligatorio
      */
     @NotBlank(message = "El título es obligatorio")
+    @Size(max = 255, message = "El título no puede superar los 255 caracteres")
     private String title;
 
     /**
@@ -35,12 +38,14 @@ public class CreateBookRequest {
      * Campo obligatorio
      */
     @NotBlank(message = "El autor es obligatorio")
+    @Size(max = 255, message = "El autor no puede superar los 255 caracteres")
     private String author;
 
     /**
      * Editorial que publicó el libro
      * Campo opcional
      */
+    @Size(max = 255, message = "La editorial no puede superar los 255 caracteres")
     private String publisher;
 
     /**
@@ -53,12 +58,14 @@ public class CreateBookRequest {
      * Descripción o sinopsis del libro
      * Campo opcional.
      */
+    @Size(max = 255, message = "La descripción no puede superar los 255 caracteres")
     private String description;
 
     /**
      * URL de la imagen de portada del libro
      * Campo opcional.
      */
+    @Size(max = 500, message = "La URL de la portada no puede superar los 500 caracteres")
     private String coverImage;
 
     /**
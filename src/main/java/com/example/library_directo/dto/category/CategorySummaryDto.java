@@ -0,0 +1,40 @@
+package com.example.library_directo.dto.category;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO con el resumen de una categoría: número de libros y de copias.
+ * Se construye a partir de los contadores agregados de la categoría.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySummaryDto {
+
+    /**
+     * Identificador de la categoría.
+     */
+    private Long categoryId;
+
+    /**
+     * Nombre de la categoría.
+     */
+    private String name;
+
+    /**
+     * Número de libros de la categoría.
+     */
+    private Long bookCount;
+
+    /**
+     * Copias totales de los libros de la categoría.
+     */
+    private Long totalCopies;
+
+    /**
+     * Copias disponibles de los libros de la categoría.
+     */
+    private Long availableCopies;
+}
@@ -0,0 +1,45 @@
+package com.example.library_directo.dto.change;
+
+import com.example.library_directo.entity.CatalogEntityType;
+import com.example.library_directo.entity.ChangeOperation;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de un cambio del catálogo.
+ * Solo identifica la entidad: el consumidor pide después los datos que necesite
+ * (p. ej. con POST /api/books/batch).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangeDto {
+
+    /**
+     * Número de secuencia del cambio.
+     */
+    private Long sequence;
+
+    /**
+     * Tipo de la entidad modificada.
+     */
+    private CatalogEntityType entityType;
+
+    /**
+     * Identificador de la entidad modificada.
+     */
+    private Long entityId;
+
+    /**
+     * Operación realizada.
+     */
+    private ChangeOperation operation;
+
+    /**
+     * Fecha y hora del cambio.
+     */
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,32 @@
+package com.example.library_directo.dto.change;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para las respuestas del feed de cambios.
+ * Usa paginación por cursor sobre el número de secuencia.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeFeedDto {
+
+    /**
+     * Cambios del lote, ordenados por secuencia. Solo aparece el último cambio de cada entidad.
+     */
+    private List<CatalogChangeDto> changes;
+
+    /**
+     * Valor de since para la siguiente petición (última secuencia leída).
+     */
+    private long nextSince;
+
+    /**
+     * Si quedan más cambios por leer inmediatamente.
+     */
+    private boolean hasMore;
+}
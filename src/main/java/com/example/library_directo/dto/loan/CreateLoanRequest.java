@@ -0,0 +1,22 @@
+package com.example.library_directo.dto.loan;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO para solicitudes de préstamo de un libro.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateLoanRequest {
+
+    /**
+     * ID del libro a prestar.
+     * Campo obligatorio.
+     */
+    @NotNull(message = "El libro es obligatorio")
+    private Long bookId;
+}
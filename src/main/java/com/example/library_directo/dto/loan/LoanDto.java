@@ -0,0 +1,57 @@
+package com.example.library_directo.dto.loan;
+
+import com.example.library_directo.entity.LoanStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO para respuestas de préstamos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanDto {
+
+    /**
+     * Identificador único del préstamo.
+     */
+    private Long id;
+
+    /**
+     * ID del libro prestado.
+     */
+    private Long bookId;
+
+    /**
+     * ID del usuario que tiene el libro.
+     */
+    private Long userId;
+
+    /**
+     * Fecha y hora del préstamo.
+     */
+    private LocalDateTime borrowedAt;
+
+    /**
+     * Fecha y hora límite de devolución.
+     */
+    private LocalDateTime dueDate;
+
+    /**
+     * Fecha y hora de devolución (nula si no se ha devuelto).
+     */
+    private LocalDateTime returnedAt;
+
+    /**
+     * Número de renovaciones.
+     */
+    private Integer renewals;
+
+    /**
+     * Estado del préstamo.
+     */
+    private LoanStatus status;
+}
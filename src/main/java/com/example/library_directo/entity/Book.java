@@ -14,6 +14,7 @@ import java.time.LocalDateTime;
 /**
  * Entidad que representa un libro en el sistema de biblioteca.
  * Incluye información básica del libro, disponibilidad y relaciones con categoría y usuarios
+ * Los índices se crean con las migraciones de Flyway (db/migration); aquí solo se documentan.
  */
 
 @Data
@@ -21,7 +22,14 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_title", columnList = "title"),
+        @Index(name = "idx_books_author", columnList = "author"),
+        @Index(name = "idx_books_category_title", columnList = "category_id, title"),
+        @Index(name = "idx_books_category", columnList = "category_id"),
+        @Index(name = "idx_books_created_at", columnList = "created_at"),
+        @Index(name = "idx_books_updated_at", columnList = "updated_at")
+})
 public class Book {
 
     /**
@@ -91,23 +99,25 @@ public class Book {
     /**
      * Número de copias actualmente disponibles para préstamo.
      * No puede ser nulo y se actualiza con préstamos/devoluciones.
+     * Solo lo modifican los UPDATE atómicos del repositorio: el UPDATE de la entidad no lo
+     * incluye, para que editar un libro no pise los préstamos confirmados mientras tanto.
      */
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer availableCopies;
 
     /**
-     * Usuario que registró el libro en el sistema.
-     * Relación Many-to-One con User.
+     * Categoría a la que pertenece el libro.
+     * Relación Many-to-One con Category, cargada de forma perezosa.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
     /**
      * Usuario que registró el libro en el sistema
-     * Relación Many-to-One con User.
+     * Relación Many-to-One con User, cargada de forma perezosa.
      */
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
 
@@ -0,0 +1,37 @@
+package com.example.library_directo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lápida de un libro borrado.
+ * Permite a los clientes de sincronización incremental enterarse de los borrados,
+ * ya que la fila del libro deja de existir.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "book_tombstones", indexes = {
+        @Index(name = "idx_book_tombstones_deleted_at", columnList = "deleted_at")
+})
+public class BookTombstone {
+
+    /**
+     * Identificador del libro borrado.
+     */
+    @Id
+    private Long bookId;
+
+    /**
+     * Fecha y hora del borrado.
+     */
+    @Column(nullable = false)
+    private LocalDateTime deletedAt;
+}
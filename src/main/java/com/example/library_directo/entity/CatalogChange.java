@@ -0,0 +1,60 @@
+package com.example.library_directo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa un cambio del catálogo en el outbox.
+ * Se inserta en la misma transacción que el cambio, así el feed nunca publica
+ * cambios deshechos ni pierde cambios confirmados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "catalog_changes", indexes = {
+        @Index(name = "idx_catalog_changes_entity", columnList = "entity_type, entity_id"),
+        @Index(name = "idx_catalog_changes_changed_at", columnList = "changed_at")
+})
+public class CatalogChange {
+
+    /**
+     * Número de secuencia del cambio.
+     * Generado automáticamente por la base de datos; crece con cada cambio.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Tipo de la entidad modificada.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CatalogEntityType entityType;
+
+    /**
+     * Identificador de la entidad modificada.
+     */
+    @Column(nullable = false)
+    private Long entityId;
+
+    /**
+     * Operación realizada sobre la entidad.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ChangeOperation operation;
+
+    /**
+     * Fecha y hora del cambio.
+     */
+    @Column(nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,11 @@
+package com.example.library_directo.entity;
+
+///  TIPOS DE ENTIDAD DEL CATÁLOGO QUE PUBLICAN CAMBIOS
+public enum CatalogEntityType {
+
+    /**
+     * BOOK: Libro.
+     * CATEGORY: Categoría.
+     */
+    BOOK, CATEGORY
+}
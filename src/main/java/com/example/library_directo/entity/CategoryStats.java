@@ -0,0 +1,45 @@
+package com.example.library_directo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Contadores agregados de los libros de una categoría.
+ * Se actualizan de forma incremental en cada escritura de libros,
+ * para que el resumen por categoría no recorra la tabla books.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "category_stats")
+public class CategoryStats {
+
+    /**
+     * Identificador de la categoría a la que pertenecen los contadores.
+     */
+    @Id
+    private Long categoryId;
+
+    /**
+     * Número de libros de la categoría.
+     */
+    @Column(nullable = false)
+    private Long bookCount;
+
+    /**
+     * Suma de las copias totales de los libros de la categoría.
+     */
+    @Column(nullable = false)
+    private Long totalCopies;
+
+    /**
+     * Suma de las copias disponibles de los libros de la categoría.
+     */
+    @Column(nullable = false)
+    private Long availableCopies;
+}
@@ -0,0 +1,12 @@
+package com.example.library_directo.entity;
+
+///  OPERACIONES REGISTRADAS EN EL FEED DE CAMBIOS
+public enum ChangeOperation {
+
+    /**
+     * CREATED: Entidad creada.
+     * UPDATED: Entidad modificada (incluye préstamos y devoluciones de copias).
+     * DELETED: Entidad eliminada.
+     */
+    CREATED, UPDATED, DELETED
+}
@@ -0,0 +1,88 @@
+package com.example.library_directo.entity;
+
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entidad que representa el préstamo de una copia de un libro a un usuario.
+ * Los índices cubren las dos consultas principales: préstamos de un usuario
+ * y búsqueda de préstamos vencidos por fecha de devolución.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loans_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_loans_user_status", columnList = "user_id, status")
+})
+public class Loan {
+
+    /**
+     * Identificador único del préstamo.
+     * Generado automáticamente por la base de datos.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Libro prestado.
+     * Relación Many-to-One con Book, cargada de forma perezosa.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+
+    /**
+     * Usuario que tiene el libro en préstamo.
+     * Relación Many-to-One con User, cargada de forma perezosa.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+
+    /**
+     * Fecha y hora del préstamo.
+     * Se establece automáticamente al crear el registro.
+     */
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime borrowedAt;
+
+    /**
+     * Fecha y hora límite de devolución.
+     * Se amplía con cada renovación.
+     */
+    @Column(name = "due_date", nullable = false)
+    private LocalDateTime dueDate;
+
+    /**
+     * Fecha y hora de devolución.
+     * Nulo mientras el préstamo está en curso.
+     */
+    @Column
+    private LocalDateTime returnedAt;
+
+    /**
+     * Número de veces que se ha renovado el préstamo.
+     */
+    @Column(nullable = false)
+    private Integer renewals;
+
+    /**
+     * Estado del préstamo.
+     * Valores posibles: ACTIVE, OVERDUE, RETURNED.
+     */
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private LoanStatus status;
+}
@@ -0,0 +1,12 @@
+package com.example.library_directo.entity;
+
+///  ESTADOS DE UN PRÉSTAMO
+public enum LoanStatus {
+
+    /**
+     * ACTIVE: Préstamo en curso, dentro de plazo.
+     * OVERDUE: Préstamo en curso con la fecha de devolución superada.
+     * RETURNED: Préstamo devuelto.
+     */
+    ACTIVE, OVERDUE, RETURNED
+}
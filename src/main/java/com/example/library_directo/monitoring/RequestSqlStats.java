@@ -0,0 +1,74 @@
+package com.example.library_directo.monitoring;
+
+/**
+ * Sentencias SQL ejecutadas y tiempo total en BD durante la petición HTTP en curso.
+ * Se guarda en un ThreadLocal que abre y cierra {@link SqlBudgetFilter}; fuera de
+ * una petición (tareas programadas, arranque) no hay estadísticas y no se cuenta nada.
+ * Los cuerpos en streaming se escriben en otro hilo: {@link SqlStatsAsyncInterceptor}
+ * traslada allí las estadísticas de la petición.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+
+    private RequestSqlStats() {
+    }
+
+    /**
+     * Empieza a contar las sentencias del hilo actual.
+     *
+     * @return estadísticas de la petición
+     */
+    public static RequestSqlStats start() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Sigue contando en el hilo actual las sentencias de una petición empezada en otro hilo.
+     *
+     * @param stats estadísticas de la petición
+     */
+    public static void resume(RequestSqlStats stats) {
+        CURRENT.set(stats);
+    }
+
+    /**
+     * @return estadísticas de la petición en curso, o null si no hay ninguna
+     */
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Deja de contar las sentencias del hilo actual.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Registra una sentencia ejecutada en la petición en curso, si la hay.
+     *
+     * @param elapsedNanos duración de la sentencia
+     */
+    public static void record(long elapsedNanos) {
+        RequestSqlStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long millis() {
+        return nanos / 1_000_000;
+    }
+}
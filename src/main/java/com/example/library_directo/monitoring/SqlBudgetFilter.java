@@ -0,0 +1,109 @@
+package com.example.library_directo.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Cuenta las sentencias SQL y el tiempo en BD de cada petición HTTP.
+ * Va antes que la cadena de seguridad para incluir también las consultas de autenticación.
+ * Al terminar publica "sql.statements.per.request" por endpoint y, si se supera el presupuesto,
+ * lo registra en el log y en "sql.budget.exceeded".
+ * En las respuestas asíncronas (/api/books/stream, /api/books/delta) el recuento sigue en el hilo
+ * que escribe el cuerpo ({@link SqlStatsAsyncInterceptor}) y se publica en el despacho asíncrono.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@RequiredArgsConstructor
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+    /// Atributo de la petición con sus estadísticas, para continuar el recuento en otros hilos
+    static final String STATS_ATTRIBUTE = RequestSqlStats.class.getName();
+
+    private final SqlBudgetProperties budget;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            /// El cuerpo asíncrono ya se ha escrito: se publica lo contado en ambos hilos
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                if (request.getAttribute(STATS_ATTRIBUTE) instanceof RequestSqlStats stats) {
+                    report(request, stats);
+                }
+            }
+            return;
+        }
+
+        RequestSqlStats stats = RequestSqlStats.start();
+        request.setAttribute(STATS_ATTRIBUTE, stats);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.clear();
+            if (!request.isAsyncStarted()) {
+                report(request, stats);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private void report(HttpServletRequest request, RequestSqlStats stats) {
+        String uri = uriPattern(request);
+        String endpoint = endpoint(request);
+
+        DistributionSummary.builder("sql.statements.per.request")
+                .description("Sentencias SQL por petición HTTP")
+                .tags("uri", uri, "method", request.getMethod())
+                .register(meterRegistry)
+                .record(stats.statements());
+
+        if (budget.isExceeded(endpoint, stats)) {
+            log.warn("Presupuesto de SQL superado en {}: {} sentencias en {} ms (máximo {} sentencias, {} ms)",
+                    endpoint, stats.statements(), stats.millis(),
+                    budget.maxStatementsFor(endpoint), budget.maxTime().toMillis());
+            Counter.builder("sql.budget.exceeded")
+                    .description("Peticiones que superan el presupuesto de SQL")
+                    .tags("uri", uri, "method", request.getMethod())
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    /**
+     * @param request petición HTTP
+     * @return método y patrón de la URI, p. ej. "GET /api/books/{id}"
+     */
+    static String endpoint(HttpServletRequest request) {
+        return request.getMethod() + " " + uriPattern(request);
+    }
+
+    private static String uriPattern(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
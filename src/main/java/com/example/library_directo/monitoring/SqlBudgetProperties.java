@@ -0,0 +1,43 @@
+package com.example.library_directo.monitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Presupuesto de SQL por petición HTTP (app.sql-budget.*).
+ *
+ * @param maxStatements número máximo de sentencias por petición
+ * @param maxTime tiempo máximo en BD por petición
+ * @param endpoints máximo de sentencias por endpoint ("GET /api/books/{id}"), sustituye a maxStatements
+ * @param debugHeaders si se devuelven X-SQL-Count y X-SQL-Time-Ms en las respuestas
+ * @param strict si una petición que supera el presupuesto falla en lugar de solo registrarse (tests)
+ */
+@ConfigurationProperties("app.sql-budget")
+public record SqlBudgetProperties(
+        @DefaultValue("20") int maxStatements,
+        @DefaultValue("500ms") Duration maxTime,
+        Map<String, Integer> endpoints,
+        @DefaultValue("false") boolean debugHeaders,
+        @DefaultValue("false") boolean strict
+) {
+
+    /**
+     * @param endpoint método y patrón de la URI, p. ej. "GET /api/books/{id}"
+     * @return máximo de sentencias permitido para el endpoint
+     */
+    public int maxStatementsFor(String endpoint) {
+        return endpoints != null ? endpoints.getOrDefault(endpoint, maxStatements) : maxStatements;
+    }
+
+    /**
+     * @param endpoint método y patrón de la URI
+     * @param stats estadísticas de la petición
+     * @return true si la petición ha superado el número de sentencias o el tiempo en BD
+     */
+    public boolean isExceeded(String endpoint, RequestSqlStats stats) {
+        return stats.statements() > maxStatementsFor(endpoint) || stats.millis() > maxTime.toMillis();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.library_directo.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Añade el recuento de SQL de la petición a la respuesta, justo antes de escribir el cuerpo
+ * (después ya no se pueden añadir cabeceras).
+ * En modo estricto, una petición que supera su presupuesto falla: así los tests
+ * detectan cuándo un endpoint empieza a lanzar más consultas (p. ej. un N+1).
+ */
+@RestControllerAdvice
+@RequiredArgsConstructor
+public class SqlBudgetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String SQL_COUNT_HEADER = "X-SQL-Count";
+    public static final String SQL_TIME_HEADER = "X-SQL-Time-Ms";
+
+    private final SqlBudgetProperties budget;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return budget.debugHeaders() || budget.strict();
+    }
+
+    @Override
+    public Object beforeBodyWrite(
+            Object body,
+            MethodParameter returnType,
+            MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            ServerHttpRequest request,
+            ServerHttpResponse response
+    ) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats == null) {
+            return body;
+        }
+
+        if (budget.debugHeaders()) {
+            response.getHeaders().set(SQL_COUNT_HEADER, Integer.toString(stats.statements()));
+            response.getHeaders().set(SQL_TIME_HEADER, Long.toString(stats.millis()));
+        }
+
+        if (budget.strict() && request instanceof ServletServerHttpRequest servletRequest) {
+            HttpServletRequest httpRequest = servletRequest.getServletRequest();
+            String endpoint = SqlBudgetFilter.endpoint(httpRequest);
+            if (budget.isExceeded(endpoint, stats)) {
+                throw new IllegalStateException("Presupuesto de SQL superado en " + endpoint + ": "
+                        + stats.statements() + " sentencias (máximo " + budget.maxStatementsFor(endpoint) + ")");
+            }
+        }
+        return body;
+    }
+}
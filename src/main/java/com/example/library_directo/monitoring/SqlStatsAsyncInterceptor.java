@@ -0,0 +1,29 @@
+package com.example.library_directo.monitoring;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cuenta las sentencias de los cuerpos en streaming (StreamingResponseBody) y de los Callable,
+ * que Spring MVC ejecuta en un hilo del executor asíncrono y no en el de la petición.
+ * Antes de ejecutarlos recupera las estadísticas que {@link SqlBudgetFilter} dejó en la petición;
+ * el filtro las publica cuando vuelve el despacho asíncrono, con el cuerpo ya escrito.
+ */
+public class SqlStatsAsyncInterceptor implements CallableProcessingInterceptor {
+
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        Object stats = request.getAttribute(SqlBudgetFilter.STATS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (stats instanceof RequestSqlStats requestStats) {
+            RequestSqlStats.resume(requestStats);
+        }
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        RequestSqlStats.clear();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.library_directo.monitoring;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Listener de sesión de Hibernate que cuenta cada sentencia JDBC y su duración
+ * en {@link RequestSqlStats}. Hibernate crea una instancia por sesión; se registra con
+ * spring.jpa.properties.hibernate.session.events.auto.
+ * Las sentencias de JdbcTemplate (importación masiva) no pasan por aquí.
+ */
+public class SqlStatsSessionListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        RequestSqlStats.record(System.nanoTime() - statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        RequestSqlStats.record(System.nanoTime() - batchStart);
+    }
+}
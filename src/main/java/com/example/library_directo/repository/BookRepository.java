@@ -1,19 +1,49 @@
 package com.example.library_directo.repository;
 
 
+import com.example.library_directo.dto.book.BookDto;
 import com.example.library_directo.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para gestionar operaciones de base de datos de libros.
  *Extiende JpaRepository para operaciones CRUD básicas.
  */
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
+
+    /**
+     * Filas por viaje de red en las consultas que devuelven un Stream.
+     * Con useCursorFetch=true en la URL de MySQL el driver abre un cursor en el servidor
+     * y trae los resultados en bloques de este tamaño, sin cargarlos todos en memoria.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Proyección común para las lecturas de libros: construye el BookDto
+     * uniendo categoría y creador en una sola sentencia (sin N+1).
+     */
+    String BOOK_DTO_SELECT = "select new com.example.library_directo.dto.book.BookDto("
+            + "b.id, b.isbn, b.title, b.author, b.publisher, b.publicationYear, "
+            + "b.description, b.coverImage, b.totalCopies, b.availableCopies, "
+            + "c.id, c.name, c.description, u.name) "
+            + "from Book b join b.category c join b.createdBy u ";
 
     /**
      * Busca un libro por su código ISBN.
@@ -46,28 +76,172 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      * @return true si existe, false si no.
      */
     boolean existsByIsbn(String isbn);
-}
-
-
-
-
-
-
-
-
-
 
+    /**
+     * Obtiene cuáles de los ISBN dados ya existen, con una sola consulta IN.
+     *
+     * @param isbns códigos ISBN a comprobar
+     * @return ISBN que ya están registrados.
+     */
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findIsbnsByIsbnIn(Collection<String> isbns);
 
+    /**
+     * Obtiene una página de libros ya proyectados a DTO (keyset sobre el ID).
+     * Categoría y creador se obtienen en la misma sentencia.
+     *
+     * @param afterId cursor: ID del último libro de la página anterior
+     * @param limit número máximo de libros a devolver
+     * @return libros en formato DTO con ID mayor que el cursor, ordenados por ID.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.id > :afterId order by b.id")
+    List<BookDto> findDtosAfter(Long afterId, Limit limit);
 
+    /**
+     * Obtiene una página de los libros de una categoría a partir de un cursor (keyset sobre el ID).
+     * Usa el índice de category_id, que en InnoDB incluye también el ID del libro.
+     *
+     * @param categoryId identificador de la categoría
+     * @param afterId cursor: ID del último libro de la página anterior
+     * @param limit número máximo de libros a devolver
+     * @return libros de la categoría en formato DTO con ID mayor que el cursor, ordenados por ID.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.category.id = :categoryId and b.id > :afterId order by b.id")
+    List<BookDto> findDtosByCategoryAfter(Long categoryId, Long afterId, Limit limit);
 
+    /**
+     * Obtiene un libro proyectado a DTO por su ID en una sola sentencia.
+     *
+     * @param id identificador del libro
+     * @return Optional con el libro en formato DTO si existe.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.id = :id")
+    Optional<BookDto> findDtoById(Long id);
 
+    /**
+     * Busca un libro por su ID cargando también su creador en la misma consulta.
+     * Se usa en las escrituras cuyo resultado se convierte a DTO fuera de la transacción.
+     *
+     * @param id identificador del libro
+     * @return Optional con el libro si existe.
+     */
+    @EntityGraph(attributePaths = "createdBy")
+    Optional<Book> findWithCreatorById(Long id);
 
+    /**
+     * Obtiene la fecha de última modificación de un libro sin cargar la entidad.
+     *
+     * @param id identificador del libro
+     * @return Optional con la fecha de última modificación (o de creación) si el libro existe.
+     */
+    @Query("select coalesce(b.updatedAt, b.createdAt) from Book b where b.id = :id")
+    Optional<LocalDateTime> findLastModifiedById(Long id);
 
+    /**
+     * Obtiene varios libros proyectados a DTO en una sola sentencia IN.
+     * No garantiza ningún orden en el resultado.
+     *
+     * @param ids identificadores de los libros
+     * @return libros encontrados en formato DTO.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.id in :ids")
+    List<BookDto> findDtosByIdIn(Collection<Long> ids);
 
+    /**
+     * Obtiene el estado actual de varios libros para el índice de búsqueda.
+     * Se ejecuta en una transacción de escritura propia, así que lee del primario aunque
+     * se llame después de confirmar otra transacción: la réplica podría no tener aún el cambio.
+     *
+     * @param ids identificadores de los libros
+     * @return libros que siguen existiendo, en formato DTO.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(BOOK_DTO_SELECT + "where b.id in :ids")
+    List<BookDto> findCurrentDtosByIdIn(Collection<Long> ids);
 
+    /**
+     * Obtiene varios libros por ISBN proyectados a DTO en una sola sentencia IN.
+     * No garantiza ningún orden en el resultado.
+     *
+     * @param isbns ISBNs de los libros
+     * @return libros encontrados en formato DTO.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.isbn in :isbns")
+    List<BookDto> findDtosByIsbnIn(Collection<String> isbns);
 
+    /**
+     * Recorre todos los libros proyectados a DTO como un Stream ordenado por ID.
+     * Se lee en bloques de {@value #STREAM_FETCH_SIZE} filas
+     * en lugar de cargar el resultado completo en memoria.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @return stream de todos los libros en formato DTO.
+     */
+    @Query(BOOK_DTO_SELECT + "order by b.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = STREAM_FETCH_SIZE))
+    Stream<BookDto> streamAllDtos();
 
+    /**
+     * Recorre como un Stream los libros creados o modificados después de una fecha,
+     * ordenados por fecha de modificación. Usa el índice de updated_at.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @param since solo se devuelven los libros modificados después de esta fecha
+     * @return stream de libros en formato DTO.
+     */
+    @Query(BOOK_DTO_SELECT + "where b.updatedAt > :since order by b.updatedAt, b.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = STREAM_FETCH_SIZE))
+    Stream<BookDto> streamDtosUpdatedAfter(LocalDateTime since);
 
+    /**
+     * Obtiene las copias disponibles de un libro tal como están en la base de datos,
+     * sin pasar por la entidad cargada (que no refleja los préstamos posteriores).
+     *
+     * @param id identificador del libro
+     * @return Optional con las copias disponibles si el libro existe.
+     */
+    @Query("select b.availableCopies from Book b where b.id = :id")
+    Optional<Integer> findAvailableCopiesById(Long id);
 
+    /**
+     * Marca como modificados todos los libros de una categoría.
+     * Los libros incluyen su categoría en la respuesta: al renombrarla cambian su ETag
+     * de detalle y vuelven a aparecer en la sincronización incremental. Usa el índice de category_id.
+     *
+     * @param categoryId identificador de la categoría
+     * @param now fecha de actualización a registrar
+     * @return número de libros marcados.
+     */
+    @Modifying
+    @Query("update Book b set b.updatedAt = :now where b.category.id = :categoryId")
+    int touchByCategoryId(Long categoryId, LocalDateTime now);
 
+    /**
+     * Resta una copia disponible de forma atómica con un UPDATE condicional.
+     * La condición available_copies > 0 se evalúa en la propia sentencia,
+     * por lo que peticiones concurrentes nunca dejan el contador en negativo.
+     *
+     * @param id identificador del libro
+     * @param now fecha de actualización a registrar
+     * @return 1 si se ha prestado la copia, 0 si el libro no existe o no quedan copias.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies - 1, b.updatedAt = :now "
+            + "where b.id = :id and b.availableCopies > 0")
+    int decrementAvailableCopies(Long id, LocalDateTime now);
 
+    /**
+     * Suma una copia disponible de forma atómica con un UPDATE condicional.
+     * Nunca supera el número total de copias.
+     *
+     * @param id identificador del libro
+     * @param now fecha de actualización a registrar
+     * @return 1 si se ha devuelto la copia, 0 si el libro no existe o ya están todas disponibles.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies + 1, b.updatedAt = :now "
+            + "where b.id = :id and b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(Long id, LocalDateTime now);
+}
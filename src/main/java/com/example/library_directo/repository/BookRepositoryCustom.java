@@ -0,0 +1,35 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.book.BookField;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Consultas de libros con selección de campos (fields=).
+ * Solo se seleccionan las columnas pedidas y solo se hace JOIN con categorías o usuarios
+ * si se pide la categoría o el creador.
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Obtiene una página de libros con los campos pedidos (keyset sobre el ID).
+     *
+     * @param afterId ID del último libro de la página anterior
+     * @param limit número máximo de libros
+     * @param fields campos a devolver
+     * @return libros como mapas campo → valor, ordenados por ID.
+     */
+    List<Map<String, Object>> findFieldsAfter(Long afterId, int limit, Set<BookField> fields);
+
+    /**
+     * Obtiene un libro con los campos pedidos.
+     *
+     * @param id identificador del libro
+     * @param fields campos a devolver
+     * @return Optional con el libro como mapa campo → valor si existe.
+     */
+    Optional<Map<String, Object>> findFieldsById(Long id, Set<BookField> fields);
+}
@@ -0,0 +1,112 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.book.BookField;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Implementación con Criteria API de {@link BookRepositoryCustom}.
+ * Cada consulta es una proyección a Tuple con las columnas de los campos pedidos;
+ * la categoría se devuelve como objeto anidado igual que en BookDto.
+ */
+class BookRepositoryCustomImpl implements BookRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsAfter(Long afterId, int limit, Set<BookField> fields) {
+        return findFields(fields, (cb, book) -> cb.greaterThan(book.get("id"), afterId), limit);
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, Set<BookField> fields) {
+        return findFields(fields, (cb, book) -> cb.equal(book.get("id"), id), 1)
+                .stream()
+                .findFirst();
+    }
+
+    private List<Map<String, Object>> findFields(
+            Set<BookField> fields,
+            BiFunction<CriteriaBuilder, Root<Book>, Predicate> where,
+            int limit
+    ) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Book> book = query.from(Book.class);
+
+        /// El ID va siempre, el primero: es el cursor de paginación
+        Set<BookField> selected = EnumSet.of(BookField.ID);
+        selected.addAll(fields);
+
+        /// Ruta en el JSON de cada columna seleccionada ("title", o "category" + "name")
+        List<String[]> paths = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>();
+
+        for (BookField field : selected) {
+            switch (field) {
+                case CATEGORY -> {
+                    Join<Book, Category> category = book.join("category");
+                    for (String attribute : List.of("id", "name", "description")) {
+                        paths.add(new String[]{field.getFieldName(), attribute});
+                        selections.add(category.get(attribute));
+                    }
+                }
+                case CREATED_BY_NAME -> {
+                    Join<Book, User> createdBy = book.join("createdBy");
+                    paths.add(new String[]{field.getFieldName()});
+                    selections.add(createdBy.get("name"));
+                }
+                default -> {
+                    paths.add(new String[]{field.getFieldName()});
+                    selections.add(book.get(field.getFieldName()));
+                }
+            }
+        }
+
+        query.select(cb.tuple(selections))
+                .where(where.apply(cb, book))
+                .orderBy(cb.asc(book.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> toMap(tuple, paths))
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toMap(Tuple tuple, List<String[]> paths) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String[] path = paths.get(i);
+            if (path.length == 1) {
+                row.put(path[0], tuple.get(i));
+            } else {
+                ((Map<String, Object>) row.computeIfAbsent(path[0], key -> new LinkedHashMap<String, Object>()))
+                        .put(path[1], tuple.get(i));
+            }
+        }
+        return row;
+    }
+}
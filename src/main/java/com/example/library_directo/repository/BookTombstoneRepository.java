@@ -0,0 +1,40 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.entity.BookTombstone;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de las lápidas de libros borrados.
+ */
+@Repository
+public interface BookTombstoneRepository extends JpaRepository<BookTombstone, Long> {
+
+    /**
+     * Recorre las lápidas posteriores a una fecha como un Stream ordenado por fecha de borrado.
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @param since solo se devuelven los borrados posteriores a esta fecha
+     * @return stream de lápidas.
+     */
+    @Query("select t from BookTombstone t where t.deletedAt > :since order by t.deletedAt")
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = BookRepository.STREAM_FETCH_SIZE))
+    Stream<BookTombstone> streamDeletedAfter(LocalDateTime since);
+
+    /**
+     * Borra las lápidas anteriores a una fecha.
+     *
+     * @param before fecha límite de retención
+     * @return número de lápidas borradas.
+     */
+    @Modifying
+    @Query("delete from BookTombstone t where t.deletedAt < :before")
+    int deleteExpired(LocalDateTime before);
+}
@@ -0,0 +1,43 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.change.CatalogChangeDto;
+import com.example.library_directo.entity.CatalogChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repositorio del outbox de cambios del catálogo.
+ */
+@Repository
+public interface CatalogChangeRepository extends JpaRepository<CatalogChange, Long> {
+
+    /**
+     * Obtiene los cambios posteriores a un número de secuencia, proyectados a DTO.
+     *
+     * @param since cursor: última secuencia leída por el consumidor
+     * @param limit número máximo de cambios a devolver
+     * @return cambios con secuencia mayor que el cursor, ordenados por secuencia.
+     */
+    @Query("select new com.example.library_directo.dto.change.CatalogChangeDto("
+            + "c.id, c.entityType, c.entityId, c.operation, c.changedAt) "
+            + "from CatalogChange c where c.id > :since order by c.id")
+    List<CatalogChangeDto> findDtosAfter(Long since, Limit limit);
+
+    /**
+     * Busca cambios anteriores a una fecha que ya tienen un cambio posterior de la misma entidad.
+     * Son los que se pueden compactar sin que un consumidor pierda el estado final de la entidad.
+     *
+     * @param before solo se consideran los cambios anteriores a esta fecha
+     * @param limit número máximo de IDs a devolver
+     * @return IDs de los cambios reemplazados.
+     */
+    @Query("select c.id from CatalogChange c where c.changedAt < :before and exists ("
+            + "select n.id from CatalogChange n "
+            + "where n.entityType = c.entityType and n.entityId = c.entityId and n.id > c.id)")
+    List<Long> findSupersededIds(LocalDateTime before, Limit limit);
+}
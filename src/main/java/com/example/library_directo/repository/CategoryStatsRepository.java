@@ -0,0 +1,73 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.category.CategorySummaryDto;
+import com.example.library_directo.entity.CategoryStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio de los contadores agregados por categoría.
+ * Los contadores se modifican con UPDATE relativos (columna = columna + delta),
+ * de modo que escrituras concurrentes sobre la misma categoría no se pisan.
+ */
+@Repository
+public interface CategoryStatsRepository extends JpaRepository<CategoryStats, Long> {
+
+    /**
+     * Proyección común del resumen: contadores junto con el nombre de la categoría.
+     */
+    String SUMMARY_SELECT = "select new com.example.library_directo.dto.category.CategorySummaryDto("
+            + "c.id, c.name, s.bookCount, s.totalCopies, s.availableCopies) "
+            + "from CategoryStats s join Category c on c.id = s.categoryId ";
+
+    /**
+     * Suma los incrementos indicados a los contadores de una categoría.
+     *
+     * @param categoryId identificador de la categoría
+     * @param books incremento del número de libros
+     * @param totalCopies incremento de las copias totales
+     * @param availableCopies incremento de las copias disponibles
+     * @return número de filas actualizadas (0 si la categoría no tiene contadores).
+     */
+    @Modifying
+    @Query("update CategoryStats s set s.bookCount = s.bookCount + :books, "
+            + "s.totalCopies = s.totalCopies + :totalCopies, "
+            + "s.availableCopies = s.availableCopies + :availableCopies "
+            + "where s.categoryId = :categoryId")
+    int applyDelta(Long categoryId, long books, long totalCopies, long availableCopies);
+
+    /**
+     * Suma un incremento a las copias disponibles de la categoría de un libro,
+     * sin leer antes el libro.
+     *
+     * @param bookId identificador del libro
+     * @param delta incremento de las copias disponibles
+     * @return número de filas actualizadas.
+     */
+    @Modifying
+    @Query("update CategoryStats s set s.availableCopies = s.availableCopies + :delta "
+            + "where s.categoryId = (select b.category.id from Book b where b.id = :bookId)")
+    int applyAvailableDeltaByBookId(Long bookId, long delta);
+
+    /**
+     * Obtiene el resumen de todas las categorías ordenado por nombre.
+     *
+     * @return resumen de cada categoría.
+     */
+    @Query(SUMMARY_SELECT + "order by c.name")
+    List<CategorySummaryDto> findSummaries();
+
+    /**
+     * Obtiene el resumen de una categoría.
+     *
+     * @param categoryId identificador de la categoría
+     * @return Optional con el resumen si la categoría existe.
+     */
+    @Query(SUMMARY_SELECT + "where s.categoryId = :categoryId")
+    Optional<CategorySummaryDto> findSummaryByCategoryId(Long categoryId);
+}
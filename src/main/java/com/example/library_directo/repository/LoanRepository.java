@@ -0,0 +1,112 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.loan.LoanDto;
+import com.example.library_directo.entity.Loan;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repositorio para gestionar operaciones de base de datos de préstamos.
+ * Los cambios de estado se hacen con UPDATE condicionales (una sentencia por cambio).
+ */
+@Repository
+public interface LoanRepository extends JpaRepository<Loan, Long> {
+
+    /**
+     * Proyección común para las lecturas de préstamos, sin cargar libro ni usuario.
+     */
+    String LOAN_DTO_SELECT = "select new com.example.library_directo.dto.loan.LoanDto("
+            + "l.id, l.book.id, l.user.id, l.borrowedAt, l.dueDate, l.returnedAt, l.renewals, l.status) "
+            + "from Loan l ";
+
+    /**
+     * Obtiene los préstamos en curso (activos o vencidos) de un usuario.
+     * Usa el índice (user_id, status).
+     *
+     * @param userId identificador del usuario
+     * @return préstamos en curso ordenados por fecha de devolución.
+     */
+    @Query(LOAN_DTO_SELECT + "where l.user.id = :userId "
+            + "and l.status <> com.example.library_directo.entity.LoanStatus.RETURNED "
+            + "order by l.dueDate")
+    List<LoanDto> findOpenLoansByUserId(Long userId);
+
+    /**
+     * Obtiene una página de préstamos vencidos usando paginación por cursor (keyset).
+     *
+     * @param afterId ID del último préstamo de la página anterior
+     * @param limit número máximo de préstamos a devolver
+     * @return préstamos vencidos con ID mayor que el cursor, ordenados por ID.
+     */
+    @Query(LOAN_DTO_SELECT + "where l.status = com.example.library_directo.entity.LoanStatus.OVERDUE "
+            + "and l.id > :afterId order by l.id")
+    List<LoanDto> findOverdueAfter(Long afterId, Limit limit);
+
+    /**
+     * Obtiene el ID del libro de un préstamo sin cargar la entidad.
+     *
+     * @param id identificador del préstamo
+     * @return Optional con el ID del libro si el préstamo existe.
+     */
+    @Query("select l.book.id from Loan l where l.id = :id")
+    Optional<Long> findBookIdById(Long id);
+
+    /**
+     * Comprueba si un libro tiene préstamos, en curso o ya devueltos.
+     *
+     * @param bookId identificador del libro
+     * @return true si algún préstamo hace referencia al libro.
+     */
+    boolean existsByBookId(Long bookId);
+
+    /**
+     * Renueva un préstamo en curso si pertenece al usuario, no está vencido
+     * y no ha superado el máximo de renovaciones.
+     * La nueva fecha se calcula sobre la fecha de devolución actual, no sobre la de hoy.
+     *
+     * @param id identificador del préstamo
+     * @param userId identificador del usuario que renueva
+     * @param days días que se añaden a la fecha de devolución
+     * @param maxRenewals número máximo de renovaciones permitidas
+     * @return 1 si se ha renovado, 0 si no cumple las condiciones.
+     */
+    @Modifying
+    @Query("update Loan l set l.dueDate = l.dueDate + :days day, l.renewals = l.renewals + 1 "
+            + "where l.id = :id and l.user.id = :userId "
+            + "and l.status = com.example.library_directo.entity.LoanStatus.ACTIVE "
+            + "and l.renewals < :maxRenewals")
+    int renew(Long id, Long userId, long days, int maxRenewals);
+
+    /**
+     * Marca un préstamo en curso como devuelto.
+     *
+     * @param id identificador del préstamo
+     * @param now fecha de devolución
+     * @return 1 si se ha marcado, 0 si no existe o ya estaba devuelto.
+     */
+    @Modifying
+    @Query("update Loan l set l.status = com.example.library_directo.entity.LoanStatus.RETURNED, "
+            + "l.returnedAt = :now "
+            + "where l.id = :id and l.status <> com.example.library_directo.entity.LoanStatus.RETURNED")
+    int markReturned(Long id, LocalDateTime now);
+
+    /**
+     * Marca como vencidos los préstamos activos cuya fecha de devolución ya ha pasado.
+     * Usa el índice (status, due_date): solo recorre los préstamos recién vencidos,
+     * no la tabla completa.
+     *
+     * @param now fecha de referencia
+     * @return número de préstamos marcados como vencidos.
+     */
+    @Modifying
+    @Query("update Loan l set l.status = com.example.library_directo.entity.LoanStatus.OVERDUE "
+            + "where l.status = com.example.library_directo.entity.LoanStatus.ACTIVE and l.dueDate < :now")
+    int markOverdue(LocalDateTime now);
+}
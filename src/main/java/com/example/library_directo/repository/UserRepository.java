@@ -2,8 +2,12 @@ package com.example.library_directo.repository;
 
 
 import com.example.library_directo.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -15,10 +19,13 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * Busca un usuario por su correo electrónico.
+     * Es de solo lectura aunque se llame fuera de una transacción (carga del principal JWT),
+     * para que se pueda enrutar a la réplica.
      *
      * @param email correo electrónico del usuario
      * @return Optional conteniendo el ussuario si existe, vacío si no existe.
      */
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
 
     /**
@@ -29,6 +36,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Obtiene el email guardado de un usuario.
+     * No vuelca antes los cambios pendientes: devuelve el valor de la BD aunque la entidad
+     * gestionada ya tenga otro email.
+     *
+     * @param id identificador del usuario
+     * @return Optional con el email si el usuario existe.
+     */
+    @Query("select u.email from User u where u.id = :id")
+    @QueryHints(@QueryHint(name = "org.hibernate.flushMode", value = "COMMIT"))
+    Optional<String> findEmailById(Long id);
+
 }
 
 
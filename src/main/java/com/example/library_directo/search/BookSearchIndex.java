@@ -0,0 +1,390 @@
+package com.example.library_directo.search;
+
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Índice invertido en memoria para la búsqueda de texto libre en el catálogo.
+ * Indexa título, autor, editorial y descripción, y ordena los resultados con BM25.
+ * Admite búsqueda por prefijo y búsqueda aproximada (una edición de distancia,
+ * contando como una sola edición la transposición de dos letras contiguas).
+ * Se construye al arrancar la aplicación y se actualiza desde BookService; dentro de una
+ * transacción los cambios se aplican al confirmarse, para no indexar escrituras revertidas.
+ * <p>
+ * Al aplicar un cambio no se usan los datos de quien lo hizo, sino que se vuelve a leer la fila
+ * del primario, y las relecturas se aplican de una en una. Así, si dos ediciones del mismo libro
+ * se confirman en un orden y sus avisos llegan en el contrario, el índice queda con la última
+ * confirmada, y un libro borrado no reaparece por una edición anterior que llegue tarde.
+ * <p>
+ * El índice vive en la memoria de cada instancia y solo ve los cambios hechos por ella:
+ * con varias instancias, los cambios de las demás no aparecen hasta que se reconstruye.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    /// Parámetros de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    /// Peso de cada campo: un término del título cuenta como 3 apariciones
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int PUBLISHER_WEIGHT = 1;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /// Peso de los términos expandidos respecto a la coincidencia exacta
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+
+    /// Máximo de términos del vocabulario en que se expande cada término de la consulta
+    private static final int MAX_EXPANSIONS = 50;
+
+    /// Longitud mínima de un término para buscarlo de forma aproximada
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private final BookRepository bookRepository;
+
+    /// Listas de postings: término → (ID del libro → frecuencia ponderada)
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    /// Términos de cada libro, para poder eliminarlo o reindexarlo
+    private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+
+    /// Longitud (ponderada) de cada libro y suma total, para la normalización de BM25
+    private final Map<Long, Integer> documentLengths = new HashMap<>();
+    private long totalLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /// Serializa las relecturas de la BD con su aplicación al índice
+    private final Lock refreshLock = new ReentrantLock();
+
+    /**
+     * Construye el índice completo a partir de la base de datos al arrancar la aplicación.
+     * Los libros se leen en streaming, sin cargar la tabla en memoria.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        refreshLock.lock();
+        try {
+            clear();
+            try (Stream<BookDto> books = bookRepository.streamAllDtos()) {
+                books.forEach(book -> put(book.getId(), analyze(
+                        book.getTitle(), book.getAuthor(), book.getPublisher(), book.getDescription())));
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+        log.info("Índice de búsqueda construido con {} libros", size());
+    }
+
+    /**
+     * Indexa (o reindexa) un libro.
+     * Si hay una transacción en curso, el índice cambia al confirmarse.
+     *
+     * @param id identificador del libro
+     */
+    public void index(Long id) {
+        index(List.of(id));
+    }
+
+    /**
+     * Indexa (o reindexa) varios libros con una sola lectura.
+     * Si hay una transacción en curso, el índice cambia al confirmarse.
+     *
+     * @param ids identificadores de los libros
+     */
+    public void index(Collection<Long> ids) {
+        List<Long> copy = List.copyOf(ids);
+        afterCommit(() -> refresh(copy));
+    }
+
+    /**
+     * Elimina un libro del índice.
+     * Si hay una transacción en curso, el índice cambia al confirmarse.
+     *
+     * @param id identificador del libro
+     */
+    public void remove(Long id) {
+        /// La relectura ya no encuentra la fila, y el libro sale del índice
+        index(id);
+    }
+
+    /**
+     * Busca libros por texto libre.
+     * Cada término de la consulta se compara de forma exacta, por prefijo y de forma aproximada.
+     *
+     * @param query texto de búsqueda
+     * @param limit número máximo de resultados
+     * @return IDs de los libros encontrados, de mayor a menor relevancia.
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(TextAnalyzer.tokenize(query)));
+
+        lock.readLock().lock();
+        try {
+            if (queryTerms.isEmpty() || documents.isEmpty()) {
+                return List.of();
+            }
+
+            double averageLength = (double) totalLength / documents.size();
+            Map<Long, Double> scores = new HashMap<>();
+
+            for (String queryTerm : queryTerms) {
+                /// Puntuación de cada libro para este término: la mejor de sus expansiones
+                Map<Long, Double> termScores = new HashMap<>();
+
+                expand(queryTerm).forEach((term, weight) -> {
+                    Map<Long, Integer> termPostings = postings.get(term);
+                    double idf = idf(termPostings.size());
+
+                    termPostings.forEach((id, frequency) -> {
+                        double score = weight * idf * bm25(frequency, documentLengths.get(id), averageLength);
+                        termScores.merge(id, score, Math::max);
+                    });
+                });
+
+                termScores.forEach((id, score) -> scores.merge(id, score, Double::sum));
+            }
+
+            return topK(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Número de libros indexados.
+     *
+     * @return número de libros en el índice.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// Lee el estado actual de los libros y lo aplica: los que ya no existen salen del índice.
+    /// La lectura y la escritura van bajo el mismo lock, para que una lectura anterior
+    /// no se aplique encima de otra posterior.
+    private void refresh(List<Long> ids) {
+        refreshLock.lock();
+        try {
+            Map<Long, BookDto> current = new HashMap<>();
+            bookRepository.findCurrentDtosByIdIn(ids).forEach(book -> current.put(book.getId(), book));
+
+            for (Long id : ids) {
+                BookDto book = current.get(id);
+                if (book == null) {
+                    lock.writeLock().lock();
+                    try {
+                        removeDocument(id);
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                } else {
+                    put(id, analyze(book.getTitle(), book.getAuthor(), book.getPublisher(), book.getDescription()));
+                }
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /// Ejecuta la acción al confirmarse la transacción en curso, o en el momento si no hay ninguna
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private Map<String, Integer> analyze(String title, String author, String publisher, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, title, TITLE_WEIGHT);
+        addTerms(frequencies, author, AUTHOR_WEIGHT);
+        addTerms(frequencies, publisher, PUBLISHER_WEIGHT);
+        addTerms(frequencies, description, DESCRIPTION_WEIGHT);
+        return frequencies;
+    }
+
+    private void put(Long id, Map<String, Integer> frequencies) {
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, frequency));
+            documents.put(id, frequencies);
+            documentLengths.put(id, length);
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            documentLengths.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /// Debe llamarse con el lock de escritura adquirido
+    private void removeDocument(Long id) {
+        Map<String, Integer> frequencies = documents.remove(id);
+        if (frequencies == null) {
+            return;
+        }
+
+        frequencies.keySet().forEach(term -> {
+            Map<Long, Integer> termPostings = postings.get(term);
+            termPostings.remove(id);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+        totalLength -= documentLengths.remove(id);
+    }
+
+    private void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    /// Términos del vocabulario que encajan con un término de la consulta, con su peso
+    private Map<String, Double> expand(String queryTerm) {
+        Map<String, Double> expansions = new HashMap<>();
+
+        if (postings.containsKey(queryTerm)) {
+            expansions.put(queryTerm, 1.0);
+        }
+
+        /// Prefijo: "quij" encuentra "quijote"
+        postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false)
+                .keySet()
+                .stream()
+                .limit(MAX_EXPANSIONS)
+                .forEach(term -> expansions.putIfAbsent(term, PREFIX_WEIGHT));
+
+        /// Aproximada: solo si no hay coincidencia exacta ("quijtoe" encuentra "quijote").
+        /// Se buscan candidatos que empiezan por la misma letra.
+        if (!expansions.containsKey(queryTerm) && queryTerm.length() >= MIN_FUZZY_LENGTH) {
+            String first = queryTerm.substring(0, 1);
+            int fuzzyMatches = 0;
+            for (String term : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (fuzzyMatches >= MAX_EXPANSIONS) {
+                    break;
+                }
+                if (Math.abs(term.length() - queryTerm.length()) <= 1 && isWithinOneEdit(queryTerm, term)) {
+                    expansions.putIfAbsent(term, FUZZY_WEIGHT);
+                    fuzzyMatches++;
+                }
+            }
+        }
+
+        return expansions;
+    }
+
+    private double idf(int documentFrequency) {
+        int total = documents.size();
+        return Math.log(1 + (total - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private double bm25(int frequency, int length, double averageLength) {
+        return (frequency * (K1 + 1)) / (frequency + K1 * (1 - B + B * length / averageLength));
+    }
+
+    /// Selecciona los k libros con mayor puntuación usando un montículo de tamaño k
+    private List<Long> topK(Map<Long, Double> scores, int limit) {
+        PriorityQueue<Map.Entry<Long, Double>> heap =
+                new PriorityQueue<>(Map.Entry.comparingByValue());
+
+        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Map.Entry<Long, Double>> top = new ArrayList<>(heap);
+        top.sort(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()));
+        return top.stream().map(Map.Entry::getKey).toList();
+    }
+
+    /// Indica si dos términos están a una edición o menos: inserción, borrado, sustitución
+    /// o transposición de dos letras contiguas (distancia de Damerau-Levenshtein restringida)
+    static boolean isWithinOneEdit(String a, String b) {
+        if (a.length() > b.length()) {
+            return isWithinOneEdit(b, a);
+        }
+        if (b.length() - a.length() > 1) {
+            return false;
+        }
+
+        /// Primera posición en la que difieren
+        int i = 0;
+        while (i < a.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (i == a.length()) {
+            return true;
+        }
+
+        /// Inserción en b
+        if (a.length() != b.length()) {
+            return a.regionMatches(i, b, i + 1, a.length() - i);
+        }
+        /// Sustitución
+        if (a.regionMatches(i + 1, b, i + 1, a.length() - i - 1)) {
+            return true;
+        }
+        /// Transposición: "quijtoe" / "quijote"
+        return i + 1 < a.length()
+                && a.charAt(i) == b.charAt(i + 1)
+                && a.charAt(i + 1) == b.charAt(i)
+                && a.regionMatches(i + 2, b, i + 2, a.length() - i - 2);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.library_directo.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Analizador de texto para el índice de búsqueda.
+ * Pasa a minúsculas, elimina acentos (plegado de diacríticos para títulos en español),
+ * separa en términos y descarta palabras vacías.
+ */
+public final class TextAnalyzer {
+
+    /// Marcas diacríticas que quedan tras la descomposición NFD (á → a + ´)
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    /// Separador de términos: cualquier carácter que no sea letra o dígito
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /// Palabras vacías más frecuentes en español e inglés
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+            "o", "para", "por", "se", "su", "un", "una", "y",
+            "an", "and", "in", "of", "on", "the", "to"
+    );
+
+    private TextAnalyzer() {
+    }
+
+    /**
+     * Normaliza un término o texto: minúsculas y sin acentos.
+     *
+     * @param text texto a normalizar
+     * @return texto normalizado
+     */
+    public static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide un texto en términos normalizados, sin palabras vacías.
+     *
+     * @param text texto a analizar (puede ser nulo)
+     * @return lista de términos en el orden en que aparecen.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATOR.split(fold(text))) {
+            if (!term.isEmpty() && !STOP_WORDS.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.library_directo.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Datos de un usuario autenticado por JWT ya resueltos desde la base de datos.
+ * Es inmutable para poder compartirse desde la caché entre peticiones.
+ *
+ * @param email email del usuario (identificador principal)
+ * @param authorities autoridades derivadas del rol del usuario
+ */
+public record AuthenticatedPrincipal(String email, List<GrantedAuthority> authorities) {
+
+    public AuthenticatedPrincipal {
+        authorities = List.copyOf(authorities);
+    }
+}
@@ -1,36 +1,47 @@
 package com.example.library_directo.security;
 
-import com.example.library_directo.entity.User;
 import com.example.library_directo.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Optional;
 
 /**
  * Filtro de autenticación JWT que intercepta todas las peticiones HTTP.
  * Se ejecutar una vez por petición  para validar Tokens JWT.
  * Solo se aplica a usuarios staff(LIBRARIAN, ADMIN) que usan JWT.
+ * El resultado de cada validación se cuenta en la métrica "jwt.validations" (tag outcome).
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String VALIDATIONS_METRIC = "jwt.validations";
+
     private final JwtUtil jwtUtil;
     private final UserService userService;
 
-    public JwtAuthenticationFilter(UserService userService, JwtUtil jwtUtil) {
+    /// Contadores por resultado: token válido, inválido/expirado, usuario inexistente y error inesperado
+    private final Counter validTokens;
+    private final Counter invalidTokens;
+    private final Counter unknownUsers;
+    private final Counter errors;
+
+    public JwtAuthenticationFilter(UserService userService, JwtUtil jwtUtil, MeterRegistry meterRegistry) {
         this.userService = userService;
         this.jwtUtil = jwtUtil;
+        this.validTokens = outcomeCounter(meterRegistry, "valid");
+        this.invalidTokens = outcomeCounter(meterRegistry, "invalid");
+        this.unknownUsers = outcomeCounter(meterRegistry, "unknown_user");
+        this.errors = outcomeCounter(meterRegistry, "error");
     }
 
     @Override
@@ -53,51 +64,57 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = authHeader.substring(7);
 
         try {
-            /// Extrae el email del token JWT
-            String email = jwtUtil.extractEmail(token);
+            ///  Verifica el token (firma y expiración) una sola vez, o lo toma de la caché
+            Optional<VerifiedToken> verifiedToken = jwtUtil.verify(token);
 
-            ///  Buscar el usuario en la BD por email
-            Optional<User> userOptional = userService.findByEmail(email);
-
-            ///  Si el usuario no existe, continúa sin autenticar
-            if (userOptional.isEmpty()) {
+            if (verifiedToken.isEmpty()) {
+                invalidTokens.increment();
                 filterChain.doFilter(request, response);
                 return;
             }
-            User user = userOptional.get();
 
-            ///  Valida el token(verifica firma y expiración)
-            boolean isValid = jwtUtil.validateToken(token, email);
+            /// Extrae el email del token JWT
+            String email = verifiedToken.get().email();
 
-            if (!isValid) {
+            ///  Buscar el usuario por email (cacheado, solo va a la BD en el primer acceso)
+            Optional<AuthenticatedPrincipal> principalOptional = userService.loadPrincipal(email);
+
+            ///  Si el usuario no existe, continúa sin autenticar
+            if (principalOptional.isEmpty()) {
+                unknownUsers.increment();
                 filterChain.doFilter(request, response);
                 return;
             }
-
-            /// Crear lista de autoridades en el rol del usuario
-            List<GrantedAuthority> authorities = List.of(
-                    new SimpleGrantedAuthority("ROLE" + user.getRole().name())
-            );
+            AuthenticatedPrincipal principal = principalOptional.get();
 
             ///  Crea el objeto de autenticación de Spring Security
             UsernamePasswordAuthenticationToken authToken =
                     new UsernamePasswordAuthenticationToken(
-                            user.getEmail(),
+                            principal.email(),
                             null,
-                            authorities
+                            principal.authorities()
                     );
 
             /// Setea el usuario autenticado en el contexto de seguridad
             SecurityContextHolder.getContext().setAuthentication(authToken);
+            validTokens.increment();
 
             /// Continúa con la cadena de filtros
             filterChain.doFilter(request, response);
 
         } catch (Exception e) {
             ///  Si hay algún error (token inválido, expirado...) continúa sin autenticar
+            errors.increment();
             filterChain.doFilter(request, response);
         }
     }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(VALIDATIONS_METRIC)
+                .description("Validaciones de tokens JWT por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
 }
 
 
@@ -1,53 +1,138 @@
 package com.example.library_directo.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
 
-    /// Clave secreta para firmar tokens (mínimo 32 caracteres para HS256)
-    @Value("${JWT_SECRET_KEY}")
-    private String SECRET_KEY;
-
     /// Tiempo de expiración del token: 24 horas en milisegundos
     private final long EXPIRATION_TIME = 86400000;
 
+    /// Clave de firma HS256, derivada una sola vez de JWT_SECRET_KEY (codificada en Base64)
+    private final SecretKey signingKey;
+
+    /// Parser inmutable y thread-safe, reutilizado en todas las verificaciones
+    private final JwtParser parser;
+
+    /// Tokens ya verificados, indexados por el hash SHA-256 del token.
+    /// Cada entrada caduca cuando expira su token.
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    public JwtUtil(
+            @Value("${JWT_SECRET_KEY}") String secretKey,
+            @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheMaxSize
+    ) {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
     /// Genera un token JWT para un usuario autenticado
     public String generateToken(String email) {
         return Jwts.builder()
                 .setSubject(email)        /// Email del usuario (identificador principal)
                 .setIssuedAt(new Date())  /// Fecha de creación del token
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_TIME)) /// Fecha de expiración
-                .signWith(SignatureAlgorithm.HS256, SECRET_KEY) /// Firma criptográfica con clave secreta
+                .signWith(signingKey, SignatureAlgorithm.HS256) /// Firma criptográfica con clave secreta
                 .compact();  /// Construye y devuelve el token como String
     }
 
-    /// Extrae el email (subject) almacenado en el token
-    public String extractEmail(String token) {
-        return extractClaims(token).getSubject();
+    /// Parsea el token verificando firma y expiración en una sola pasada.
+    /// Lanza JwtException si el token no es válido, ha expirado o no tiene expiración:
+    /// un token firmado sin "exp" no caducaría nunca.
+    public VerifiedToken parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token sin fecha de expiración");
+        }
+        return new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
     }
 
-    /// Extrae todos los claims (datos) del token parseándolo y verificando la firma
-    private Claims extractClaims(String token) {
-        return Jwts.parser()
-                .setSigningKey(SECRET_KEY)  /// Verifica que la firma sea válida con nuestra clave
-                .parseClaimsJws(token)      /// Parsea el token
-                .getBody();                 /// Obtiene los claims (datos internos)
+    /// Verifica el token usando la caché: un token repetido no vuelve a verificar la firma.
+    /// Devuelve vacío si el token no es válido o ha expirado.
+    public Optional<VerifiedToken> verify(String token) {
+        String key = hash(token);
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached);
+        }
+
+        try {
+            VerifiedToken verified = parse(token);
+            verifiedTokens.put(key, verified);
+            return Optional.of(verified);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /// Extrae el email (subject) almacenado en el token
+    public String extractEmail(String token) {
+        return verify(token)
+                .map(VerifiedToken::email)
+                .orElseThrow(() -> new JwtException("Token inválido"));
     }
 
     /// Valida si el token es correcto: email coincide y no ha expirado
     public boolean validateToken(String token, String email) {
-        return (extractEmail(token).equals(email) && !isTokenExpired(token));
+        return verify(token)
+                .map(verified -> verified.email().equals(email))
+                .orElse(false);
     }
 
-    /// Verifica si el token ha expirado comparando fecha de expiración con fecha actual
-    private boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
+    /// Calcula el hash SHA-256 del token para usarlo como clave de la caché
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /// Política de expiración de la caché: cada token vive hasta su fecha de expiración
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
@@ -0,0 +1,132 @@
+package com.example.library_directo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Filtro que limita las peticiones por cliente según políticas por ruta (app.rate-limit.*).
+ * Va justo después de JwtAuthenticationFilter: los usuarios autenticados se limitan por email
+ * y el resto (login, registro) por IP. Cada política y cliente tiene su token bucket.
+ * Los buckets viven en una caché Caffeine acotada que descarta los inactivos, así la memoria
+ * no crece con el número de clientes distintos. Al superar el límite se responde 429 con
+ * Retry-After, y se cuenta en la métrica "rate.limit.rejected" (tag policy).
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String REJECTED_METRIC = "rate.limit.rejected";
+
+    private final boolean enabled;
+    private final List<RoutePolicy> policies;
+    private final Cache<String, TokenBucket> buckets;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.policies = properties.policies() == null ? List.of() : properties.policies()
+                .stream()
+                .map(policy -> new RoutePolicy(
+                        policy,
+                        PathPatternParser.defaultInstance.parse(policy.path()),
+                        rejectedCounter(meterRegistry, policy.name())))
+                .toList();
+
+        /// Un bucket descartado antes de recargarse entero regalaría tokens: la inactividad mínima es el mayor period
+        Duration idleEviction = policies.stream()
+                .map(route -> route.policy().period())
+                .reduce(properties.idleEviction(), (a, b) -> a.compareTo(b) >= 0 ? a : b);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.maxBuckets())
+                .expireAfterAccess(idleEviction)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || policies.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        RoutePolicy route = match(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        RateLimitProperties.Policy policy = route.policy();
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(policy.name() + ":" + clientKey(request),
+                key -> new TokenBucket(policy.capacity(), policy.period().toNanos(), now));
+
+        long waitNanos = bucket.tryConsume(now);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        route.rejected().increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\": \"Too Many Requests\", \"message\": \"Rate limit exceeded\"}");
+    }
+
+    /// Primera política cuyo método y ruta coinciden con la petición
+    private RoutePolicy match(HttpServletRequest request) {
+        PathContainer path = PathContainer.parsePath(
+                request.getRequestURI().substring(request.getContextPath().length()));
+        for (RoutePolicy route : policies) {
+            String method = route.policy().method();
+            if ((method == null || method.equalsIgnoreCase(request.getMethod())) && route.pattern().matches(path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    /// Email del usuario autenticado o, si no hay, la IP del cliente (tras el proxy, según server.forward-headers-strategy)
+    private static String clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String policy) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Peticiones rechazadas por el limitador")
+                .tag("policy", policy)
+                .register(meterRegistry);
+    }
+
+    private record RoutePolicy(RateLimitProperties.Policy policy, PathPattern pattern, Counter rejected) {
+    }
+}
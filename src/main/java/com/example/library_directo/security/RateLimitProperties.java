@@ -0,0 +1,37 @@
+package com.example.library_directo.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Límites de peticiones por ruta (app.rate-limit.*).
+ *
+ * @param enabled si el limitador está activo
+ * @param maxBuckets número máximo de buckets en memoria (uno por política y cliente)
+ * @param idleEviction tiempo sin peticiones tras el que se descarta el bucket de un cliente
+ * @param policies políticas por ruta; se aplica la primera que coincide con la petición
+ */
+@ConfigurationProperties("app.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("100000") long maxBuckets,
+        @DefaultValue("10m") Duration idleEviction,
+        List<Policy> policies
+) {
+
+    /**
+     * Política de una ruta: como mucho capacity peticiones seguidas, que se recuperan
+     * de forma continua a razón de capacity por period.
+     *
+     * @param name nombre de la política (tag de las métricas y parte de la clave del bucket)
+     * @param path patrón de la ruta, p. ej. "/api/books/**"
+     * @param method método HTTP al que se aplica (nulo para todos)
+     * @param capacity tamaño del bucket (ráfaga máxima)
+     * @param period tiempo en el que se recupera el bucket completo
+     */
+    public record Policy(String name, String path, String method, long capacity, Duration period) {
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.library_directo.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sin bloqueos para el limitador de peticiones.
+ * En lugar de guardar tokens y fecha de recarga, guarda un único instante
+ * (el algoritmo GCRA, equivalente a un token bucket): el momento en que el bucket
+ * volvería a estar lleno. Así cada petición se resuelve con un compareAndSet
+ * sobre un AtomicLong, sin locks ni objetos nuevos.
+ */
+final class TokenBucket {
+
+    /// Tiempo en recuperar un token (period / capacity)
+    private final long intervalNanos;
+
+    /// Adelanto máximo permitido sobre el instante actual: capacity - 1 tokens
+    private final long burstNanos;
+
+    /// Instante en el que se habría consumido el último token concedido a ritmo constante
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long capacity, long periodNanos, long nowNanos) {
+        long tokens = Math.max(1, capacity);
+        this.intervalNanos = Math.max(1, periodNanos / tokens);
+        this.burstNanos = intervalNanos * (tokens - 1);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Intenta consumir un token.
+     *
+     * @param nowNanos instante actual (System.nanoTime)
+     * @return 0 si se ha concedido el token, o los nanosegundos hasta que haya uno disponible
+     */
+    long tryConsume(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            /// Restas en lugar de comparaciones directas: nanoTime puede desbordar
+            long start = arrival - nowNanos > 0 ? arrival : nowNanos;
+            long ahead = start - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.library_directo.security;
+
+import java.time.Instant;
+
+/**
+ * Resultado inmutable de verificar un token JWT (firma y expiración).
+ * Contiene solo los claims que usa la aplicación.
+ *
+ * @param email email del usuario (subject del token)
+ * @param expiresAt instante de expiración del token
+ */
+public record VerifiedToken(String email, Instant expiresAt) {
+
+    /**
+     * Indica si el token ya ha expirado.
+     *
+     * @return true si la fecha de expiración es anterior al instante actual.
+     */
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.library_directo.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuración de la sincronización incremental de libros (app.delta.*).
+ *
+ * @param overlap margen que se resta al token devuelto: cubre las transacciones que aún no
+ *                se habían confirmado al leer (y el retraso de las réplicas); el cliente puede
+ *                recibir algún libro repetido, nunca perder uno
+ * @param tombstoneRetention tiempo que se conservan las lápidas; un token más antiguo
+ *                           obliga a una sincronización completa
+ */
+@ConfigurationProperties("app.delta")
+public record BookDeltaProperties(
+        @DefaultValue("10s") Duration overlap,
+        @DefaultValue("30d") Duration tombstoneRetention
+) {
+}
@@ -0,0 +1,281 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.BulkImportResult;
+import com.example.library_directo.dto.book.BulkImportResult.Status;
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.entity.CatalogEntityType;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.ChangeOperation;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.search.BookSearchIndex;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio para la carga masiva de libros.
+ * Procesa la petición por bloques: comprueba los ISBN y las categorías con una consulta
+ * por bloque e inserta los libros en lotes JDBC
+ * (la estrategia IDENTITY de Book impide que Hibernate agrupe los INSERT).
+ */
+@Service
+@Timed("library.service")
+public class BookImportService {
+
+    /// Número de filas por bloque (una consulta de ISBN, una de categorías y un lote JDBC por bloque)
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final String INSERT_SQL = "insert into books (isbn, title, author, publisher, "
+            + "publication_year, description, cover_image, total_copies, available_copies, "
+            + "category_id, created_by, created_at, updated_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final CatalogVersion catalogVersion;
+    private final CategoryStatsService categoryStatsService;
+    private final ChangeFeedService changeFeedService;
+
+    public BookImportService(
+            BookRepository bookRepository,
+            CategoryRepository categoryRepository,
+            BookSearchIndex bookSearchIndex,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            Validator validator,
+            CatalogVersion catalogVersion,
+            CategoryStatsService categoryStatsService,
+            ChangeFeedService changeFeedService
+    ) {
+        this.bookRepository = bookRepository;
+        this.categoryRepository = categoryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.catalogVersion = catalogVersion;
+        this.categoryStatsService = categoryStatsService;
+        this.changeFeedService = changeFeedService;
+    }
+
+    /**
+     * Importa una lista de libros.
+     * Cada bloque se inserta en su propia transacción; un error en un bloque no afecta a los demás.
+     *
+     * @param requests libros a importar
+     * @param currentUser usuario que registra los libros
+     * @return resultado de cada fila, en el mismo orden que la petición.
+     */
+    public List<BulkImportResult> importBooks(List<CreateBookRequest> requests, User currentUser) {
+        BulkImportResult[] results = new BulkImportResult[requests.size()];
+        Set<String> seenIsbns = new HashSet<>();
+
+        for (int start = 0; start < requests.size(); start += CHUNK_SIZE) {
+            int end = Math.min(start + CHUNK_SIZE, requests.size());
+            importChunk(requests, start, end, seenIsbns, currentUser, results);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private void importChunk(
+            List<CreateBookRequest> requests,
+            int start,
+            int end,
+            Set<String> seenIsbns,
+            User currentUser,
+            BulkImportResult[] results
+    ) {
+        /// Filas del bloque que pasan la validación, con su posición en la petición
+        List<Integer> rows = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            CreateBookRequest request = requests.get(i);
+
+            Set<ConstraintViolation<CreateBookRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                results[i] = failed(i, request, Status.INVALID, message);
+            } else if (!seenIsbns.add(request.getIsbn())) {
+                results[i] = failed(i, request, Status.DUPLICATE_ISBN, "Este ISBN ya existe");
+            } else {
+                rows.add(i);
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            importRows(requests, rows, currentUser, results);
+        }
+    }
+
+    /**
+     * Comprueba e inserta un grupo de filas en una transacción.
+     * Las comprobaciones de ISBN y categoría van dentro de la transacción de escritura,
+     * así se leen del primario y no de una réplica con retraso.
+     * Si el lote falla (p. ej. un ISBN creado por otra petición entre la comprobación y el INSERT),
+     * se reintenta fila a fila para que solo la fila culpable quede como fallida.
+     */
+    private void importRows(List<CreateBookRequest> requests, List<Integer> rows, User currentUser,
+                            BulkImportResult[] results) {
+        try {
+            InsertedRows inserted = transactionTemplate.execute(status -> {
+                List<Integer> insertable = checkRows(requests, rows, results);
+                if (insertable.isEmpty()) {
+                    return new InsertedRows(insertable, List.of());
+                }
+                List<Long> ids = insertBatch(requests, insertable, currentUser);
+                updateCategoryStats(requests, insertable);
+                changeFeedService.recordAll(CatalogEntityType.BOOK, ids, ChangeOperation.CREATED);
+                return new InsertedRows(insertable, ids);
+            });
+            for (int r = 0; r < inserted.rows().size(); r++) {
+                int i = inserted.rows().get(r);
+                Long id = inserted.ids().get(r);
+                CreateBookRequest request = requests.get(i);
+                results[i] = new BulkImportResult(i, request.getIsbn(), Status.CREATED, id, null);
+            }
+            if (!inserted.rows().isEmpty()) {
+                bookSearchIndex.index(inserted.ids());
+                catalogVersion.markChanged();
+            }
+        } catch (DataAccessException e) {
+            if (rows.size() == 1) {
+                int i = rows.get(0);
+                results[i] = failed(i, requests.get(i), Status.FAILED, "Error al insertar el libro");
+                return;
+            }
+            for (int i : rows) {
+                importRows(requests, List.of(i), currentUser, results);
+            }
+        }
+    }
+
+    /// Marca las filas con ISBN ya registrado o categoría inexistente (una consulta IN de cada) y devuelve el resto
+    private List<Integer> checkRows(List<CreateBookRequest> requests, List<Integer> rows, BulkImportResult[] results) {
+        Set<String> isbns = new HashSet<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (int i : rows) {
+            isbns.add(requests.get(i).getIsbn());
+            categoryIds.add(requests.get(i).getCategoryId());
+        }
+        Set<String> existingIsbns = bookRepository.findIsbnsByIsbnIn(isbns);
+        Set<Long> existingCategoryIds = categoryRepository.findAllById(categoryIds)
+                .stream()
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+
+        List<Integer> insertable = new ArrayList<>();
+        for (int i : rows) {
+            CreateBookRequest request = requests.get(i);
+            if (existingIsbns.contains(request.getIsbn())) {
+                results[i] = failed(i, request, Status.DUPLICATE_ISBN, "Este ISBN ya existe");
+            } else if (!existingCategoryIds.contains(request.getCategoryId())) {
+                results[i] = failed(i, request, Status.INVALID_CATEGORY, "Categoria incorrecta");
+            } else {
+                insertable.add(i);
+            }
+        }
+        return insertable;
+    }
+
+    /// Inserta las filas en un lote JDBC y devuelve los IDs generados en el mismo orden
+    private List<Long> insertBatch(List<CreateBookRequest> requests, List<Integer> rows, User currentUser) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int r) throws SQLException {
+                        CreateBookRequest request = requests.get(rows.get(r));
+                        ps.setString(1, request.getIsbn());
+                        ps.setString(2, request.getTitle());
+                        ps.setString(3, request.getAuthor());
+                        ps.setString(4, request.getPublisher());
+                        if (request.getPublicationYear() != null) {
+                            ps.setInt(5, request.getPublicationYear());
+                        } else {
+                            ps.setNull(5, Types.INTEGER);
+                        }
+                        ps.setString(6, request.getDescription());
+                        ps.setString(7, request.getCoverImage());
+                        ps.setInt(8, request.getTotalCopies());
+                        ps.setInt(9, request.getTotalCopies());
+                        ps.setLong(10, request.getCategoryId());
+                        ps.setLong(11, currentUser.getId());
+                        ps.setTimestamp(12, now);
+                        ps.setTimestamp(13, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keyHolder
+        );
+
+        return keyHolder.getKeyList()
+                .stream()
+                .map(this::generatedId)
+                .toList();
+    }
+
+    /// Suma a los contadores de cada categoría los libros del bloque: un UPDATE por categoría, no por libro,
+    /// en orden de ID para no interbloquearse con otro bloque que toque las mismas categorías
+    private void updateCategoryStats(List<CreateBookRequest> requests, List<Integer> rows) {
+        Map<Long, long[]> deltas = new HashMap<>();
+        for (int i : rows) {
+            CreateBookRequest request = requests.get(i);
+            long[] delta = deltas.computeIfAbsent(request.getCategoryId(), id -> new long[3]);
+            delta[0]++;
+            delta[1] += request.getTotalCopies();
+            delta[2] += request.getTotalCopies();
+        }
+        categoryStatsService.applyDeltas(deltas);
+    }
+
+    private Long generatedId(Map<String, Object> keys) {
+        return ((Number) keys.values().iterator().next()).longValue();
+    }
+
+    /// Filas insertadas, con su posición en la petición, y los IDs generados en el mismo orden
+    private record InsertedRows(List<Integer> rows, List<Long> ids) {
+    }
+
+    private BulkImportResult failed(int index, CreateBookRequest request, Status status, String message) {
+        return new BulkImportResult(index, request.getIsbn(), status, null, message);
+    }
+}
@@ -1,42 +1,89 @@
 package com.example.library_directo.service;
 
+import com.example.library_directo.dto.book.BookBatchResult;
+import com.example.library_directo.dto.book.BookDeltaDto;
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookField;
 import com.example.library_directo.dto.book.CreateBookRequest;
 import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.BookTombstone;
+import com.example.library_directo.entity.CatalogEntityType;
 import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.ChangeOperation;
 import com.example.library_directo.entity.User;
 import com.example.library_directo.repository.BookRepository;
-import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.BookTombstoneRepository;
+import com.example.library_directo.repository.LoanRepository;
+import com.example.library_directo.search.BookSearchIndex;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.security.PublicKey;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Servicio para gestionar el catálogo de libros.
+ * Por defecto todos los métodos son transacciones de solo lectura (sin dirty checking
+ * y enrutables a réplicas); las escrituras declaran su propia transacción.
+ * Los métodos que no consultan la BD no abren transacción (SUPPORTS).
+ */
+@Slf4j
 @Service
+@Timed("library.service")
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class BookService {
 
-    private final BookRepository bookRepository;
-    private final CategoryRepository categoryRepository;
+    /// Restricciones de books (V1__initial_schema.sql) que se traducen a errores de dominio
+    private static final String ISBN_UNIQUE_CONSTRAINT = "uk_books_isbn";
+    private static final String CATEGORY_FOREIGN_KEY = "fk_books_category";
 
+    private final BookRepository bookRepository;
+    private final CategoryService categoryService;
+    private final BookSearchIndex bookSearchIndex;
+    private final CatalogVersion catalogVersion;
+    private final CategoryStatsService categoryStatsService;
+    private final ChangeFeedService changeFeedService;
+    private final BookTombstoneRepository bookTombstoneRepository;
+    private final LoanRepository loanRepository;
+    private final BookDeltaProperties bookDeltaProperties;
 
     /**
      * Crea un nuevo libro en el sistema.
+     * La unicidad del ISBN la garantiza el índice único de la BD: no se consulta antes,
+     * así dos altas simultáneas con el mismo ISBN no pueden colarse las dos.
      *
      * @param createBookRequest datos del libro a crear
      * @param currentUser usuario que registra el libro
      * @return libro creado
      * @throws RuntimeException si el ISBN ya existe o si la categoría no existe.
      */
+    @Transactional
     public Book createBook(CreateBookRequest createBookRequest, User currentUser) {
-        /// Validar ISBN único
-        if (bookRepository.existsByIsbn(createBookRequest.getIsbn())) {
-            throw new RuntimeException("Este ISBN ya existe. Verifique el ISBN.");
-        }
-
-        ///  Verificar que la categoría existe
-        Category category = categoryRepository.findById(createBookRequest.getCategoryId())
+        ///  Verificar que la categoría existe (normalmente desde caché)
+        Category category = categoryService.findCategoryById(createBookRequest.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Categoria incorrecta"));
 
         /// Crear libro
@@ -54,7 +101,13 @@ public class BookService {
                 .createdBy(currentUser)
                 .build();
 
-        return bookRepository.save(book);
+        Book saved = translateViolations(() -> bookRepository.saveAndFlush(book),
+                "Este ISBN ya existe. Verifique el ISBN.");
+        categoryStatsService.applyDelta(category.getId(), 1, saved.getTotalCopies(), saved.getAvailableCopies());
+        changeFeedService.record(CatalogEntityType.BOOK, saved.getId(), ChangeOperation.CREATED);
+        bookSearchIndex.index(saved.getId());
+        catalogVersion.markChanged();
+        return saved;
     }
 
     /**
@@ -66,6 +119,110 @@ public class BookService {
         return bookRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de libros a partir de un cursor (keyset sobre el ID).
+     * Los libros se proyectan directamente a DTO junto con su categoría y creador.
+     *
+     * @param afterId ID del último libro de la página anterior (0 para la primera página)
+     * @param size número máximo de libros a devolver
+     * @return libros en formato DTO con ID mayor que el cursor, ordenados por ID.
+     */
+    public List<BookDto> getBooksAfter(Long afterId, int size) {
+        return bookRepository.findDtosAfter(afterId, Limit.of(size));
+    }
+
+    /**
+     * Obtiene una página de libros con solo los campos pedidos (keyset sobre el ID).
+     * Solo se leen de la BD las columnas de esos campos.
+     *
+     * @param afterId ID del último libro de la página anterior (0 para la primera página)
+     * @param size número máximo de libros a devolver
+     * @param fields campos a devolver
+     * @return libros como mapas campo → valor, ordenados por ID.
+     */
+    public List<Map<String, Object>> getBookFieldsAfter(Long afterId, int size, Set<BookField> fields) {
+        return bookRepository.findFieldsAfter(afterId, size, fields);
+    }
+
+    /**
+     * Recorre todos los libros fila a fila sin cargarlos todos en memoria.
+     * Se leen como DTO, por lo que no quedan entidades en el contexto de persistencia
+     * y el consumo de memoria se mantiene constante.
+     *
+     * @param consumer acción a ejecutar sobre cada libro
+     */
+    public void streamAllBooks(Consumer<BookDto> consumer) {
+        try (Stream<BookDto> books = bookRepository.streamAllDtos()) {
+            books.forEach(consumer);
+        }
+    }
+
+    /**
+     * Decide desde qué fecha se sincroniza un cliente.
+     * Si el cliente no tiene token, o es anterior a la retención de las lápidas
+     * (se habrían perdido borrados), se hace una sincronización completa.
+     *
+     * @param since fecha del token del cliente (puede ser nula)
+     * @return fecha desde la que enviar cambios, o nulo para una sincronización completa.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public LocalDateTime resolveDeltaSince(LocalDateTime since) {
+        if (since == null || since.isBefore(LocalDateTime.now().minus(bookDeltaProperties.tombstoneRetention()))) {
+            return null;
+        }
+        return since;
+    }
+
+    /**
+     * Genera el token para la siguiente sincronización.
+     * Debe obtenerse antes de leer los cambios; se le resta el margen de solape.
+     *
+     * @return fecha del token.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public LocalDateTime nextDeltaToken() {
+        return LocalDateTime.now().minus(bookDeltaProperties.overlap());
+    }
+
+    /**
+     * Recorre los cambios de libros desde una fecha sin cargarlos en memoria:
+     * primero los libros creados o modificados y después las lápidas de los borrados.
+     * Con since nulo recorre el catálogo completo (sin lápidas).
+     *
+     * @param since fecha desde la que enviar cambios (nula para una sincronización completa)
+     * @param consumer acción a ejecutar sobre cada cambio
+     */
+    public void streamBooksDelta(LocalDateTime since, Consumer<BookDeltaDto> consumer) {
+        if (since == null) {
+            try (Stream<BookDto> books = bookRepository.streamAllDtos()) {
+                books.map(BookDeltaDto::upsert).forEach(consumer);
+            }
+            return;
+        }
+
+        try (Stream<BookDto> books = bookRepository.streamDtosUpdatedAfter(since)) {
+            books.map(BookDeltaDto::upsert).forEach(consumer);
+        }
+        try (Stream<BookTombstone> tombstones = bookTombstoneRepository.streamDeletedAfter(since)) {
+            tombstones.map(tombstone -> BookDeltaDto.delete(tombstone.getBookId(), tombstone.getDeletedAt()))
+                    .forEach(consumer);
+        }
+    }
+
+    /**
+     * Purga las lápidas más antiguas que la retención.
+     * Los clientes con un token anterior hacen una sincronización completa.
+     */
+    @Scheduled(fixedDelayString = "${app.delta.tombstone-purge-interval:PT6H}")
+    @Transactional
+    public void purgeTombstones() {
+        int purged = bookTombstoneRepository.deleteExpired(
+                LocalDateTime.now().minus(bookDeltaProperties.tombstoneRetention()));
+        if (purged > 0) {
+            log.info("{} lápidas de libros purgadas", purged);
+        }
+    }
+
     /**
      * Obtiene un libro por su ID
      *
@@ -78,8 +235,48 @@ public class BookService {
                 .orElseThrow(() -> new RuntimeException("Este libro no existe"));
     }
 
+    /**
+     * Obtiene la fecha de última modificación de un libro sin cargar la entidad.
+     * Se usa para responder a peticiones condicionales (ETag / Last-Modified).
+     *
+     * @param id identificador del libro
+     * @return fecha de última modificación
+     * @throws RuntimeException si el libro no existe
+     */
+    public LocalDateTime getBookLastModified(Long id) {
+        return bookRepository.findLastModifiedById(id)
+                .orElseThrow(() -> new RuntimeException("Este libro no existe"));
+    }
+
+    /**
+     * Obtiene un libro con solo los campos pedidos.
+     *
+     * @param id identificador del libro
+     * @param fields campos a devolver
+     * @return libro como mapa campo → valor
+     * @throws RuntimeException si el libro no existe
+     */
+    public Map<String, Object> getBookFields(Long id, Set<BookField> fields) {
+        return bookRepository.findFieldsById(id, fields)
+                .orElseThrow(() -> new RuntimeException("Este libro no existe"));
+    }
+
+    /**
+     * Obtiene un libro en formato DTO por su ID, con categoría y creador en una sola consulta.
+     *
+     * @param id identificador del libro
+     * @return libro en formato DTO
+     * @throws RuntimeException si el libro no existe
+     */
+    public BookDto getBookDtoById(Long id) {
+        return bookRepository.findDtoById(id)
+                .orElseThrow(() -> new RuntimeException("Este libro no existe"));
+    }
+
     /**
      * Actualiza un libro existente
+     * En una sola transacción: una lectura del libro y un UPDATE. La categoría sale de la caché
+     * y el ISBN duplicado lo detecta el índice único.
      *
      * @param id identificador del libro a actualizar
      * @param createBookRequest nuevos datos del libro
@@ -87,21 +284,19 @@ public class BookService {
      * @throws RuntimeException si el libro no existe, si la categoría no existe
      *                          o si el nuevo ISBN ya está en uso por otro libro.
      */
+    @Transactional
     public Book updateBook(Long id, CreateBookRequest createBookRequest) {
-        Book book = getBookById(id);
+        /// El creador se carga en la misma consulta: el DTO se construye fuera de la transacción
+        Book book = bookRepository.findWithCreatorById(id)
+                .orElseThrow(() -> new RuntimeException("Este libro no existe"));
 
-        ///  Verificar que la categoria existe
-        Category category = categoryRepository.findById(createBookRequest.getCategoryId())
+        ///  Verificar que la categoria existe (normalmente desde caché)
+        Category category = categoryService.findCategoryById(createBookRequest.getCategoryId())
                 .orElseThrow(() -> new RuntimeException("Categoria incorrecta"));
 
-        /// Verificar duplicado de ISBN(solo si es otro libro)
-        if (bookRepository.existsByIsbn(createBookRequest.getIsbn())) {
-            Book existing = bookRepository.findByIsbn(createBookRequest.getIsbn())
-                    .orElseThrow();
-            if(!existing.getId().equals(id)) {
-                throw new RuntimeException("Ya existe un libro con este ISBN");
-            }
-        }
+        /// Valores previos para ajustar los contadores de las categorías
+        Long previousCategoryId = book.getCategory().getId();
+        int previousTotalCopies = book.getTotalCopies();
 
         /// Actualizar Campos
         book.setIsbn(createBookRequest.getIsbn());
@@ -114,21 +309,242 @@ public class BookService {
         book.setTotalCopies(createBookRequest.getTotalCopies());
         book.setCategory(category);
 
-        return bookRepository.save(book);
+        /// La entidad ya está gestionada: basta con el flush, que emite un único UPDATE sin volver a leerla
+        Book saved = translateViolations(() -> {
+            bookRepository.flush();
+            return book;
+        }, "Ya existe un libro con este ISBN");
+        updateCategoryStats(saved, previousCategoryId, previousTotalCopies);
+        changeFeedService.record(CatalogEntityType.BOOK, id, ChangeOperation.UPDATED);
+        bookSearchIndex.index(saved.getId());
+        catalogVersion.markChanged();
+        return saved;
     }
 
     /**
      * Elimina un libro del sistema.
+     * Un libro con préstamos, aunque estén devueltos, no se puede eliminar:
+     * el historial de préstamos hace referencia a él.
      *
      * @param id identificador del libro a eliminar.
+     * @throws RuntimeException si el libro no existe o tiene préstamos
      */
+    @Transactional
     public void deleteBook(Long id) {
         Book book = getBookById(id);
-        bookRepository.deleteById(id);
+        if (loanRepository.existsByBookId(id)) {
+            throw new RuntimeException("No se puede eliminar un libro con préstamos");
+        }
+        bookRepository.delete(book);
+        bookTombstoneRepository.save(new BookTombstone(id, LocalDateTime.now()));
+        categoryStatsService.applyDelta(book.getCategory().getId(), -1, -book.getTotalCopies(), -book.getAvailableCopies());
+        changeFeedService.record(CatalogEntityType.BOOK, id, ChangeOperation.DELETED);
+        bookSearchIndex.remove(id);
+        catalogVersion.markChanged();
     }
-}
 
+    /**
+     * Presta una copia de un libro restando una copia disponible.
+     * Se resuelve con un único UPDATE condicional, sin leer antes el libro,
+     * de modo que nunca se prestan más copias de las que hay.
+     *
+     * @param id identificador del libro
+     * @throws RuntimeException si el libro no existe o no quedan copias disponibles
+     */
+    @Transactional
+    public void checkoutCopy(Long id) {
+        if (bookRepository.decrementAvailableCopies(id, LocalDateTime.now()) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new RuntimeException("Este libro no existe");
+            }
+            throw new RuntimeException("No hay copias disponibles de este libro");
+        }
+        categoryStatsService.copyCheckedOut(id);
+        changeFeedService.record(CatalogEntityType.BOOK, id, ChangeOperation.UPDATED);
+        catalogVersion.markChanged();
+    }
 
+    /**
+     * Devuelve una copia de un libro sumando una copia disponible.
+     * Se resuelve con un único UPDATE condicional.
+     *
+     * @param id identificador del libro
+     * @throws RuntimeException si el libro no existe o ya están todas las copias disponibles
+     */
+    @Transactional
+    public void returnCopy(Long id) {
+        if (bookRepository.incrementAvailableCopies(id, LocalDateTime.now()) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new RuntimeException("Este libro no existe");
+            }
+            throw new RuntimeException("Todas las copias de este libro ya están disponibles");
+        }
+        categoryStatsService.copyReturned(id);
+        changeFeedService.record(CatalogEntityType.BOOK, id, ChangeOperation.UPDATED);
+        catalogVersion.markChanged();
+    }
+
+    /**
+     * Obtiene una página de los libros de una categoría (keyset sobre el ID).
+     *
+     * @param categoryId identificador de la categoría
+     * @param afterId ID del último libro de la página anterior (0 para la primera página)
+     * @param size número máximo de libros a devolver
+     * @return libros de la categoría en formato DTO con ID mayor que el cursor, ordenados por ID.
+     * @throws RuntimeException si la categoría no existe
+     */
+    public List<BookDto> getCategoryBooksAfter(Long categoryId, Long afterId, int size) {
+        /// Normalmente desde caché; distingue una categoría vacía de una inexistente
+        categoryService.getCategoryById(categoryId);
+        return bookRepository.findDtosByCategoryAfter(categoryId, afterId, Limit.of(size));
+    }
+
+    /**
+     * Busca libros por texto libre en título, autor, editorial y descripción.
+     * La búsqueda se resuelve en el índice en memoria y los libros se cargan
+     * con una única consulta IN.
+     *
+     * @param query texto de búsqueda
+     * @param limit número máximo de resultados
+     * @return libros encontrados en formato DTO, de mayor a menor relevancia.
+     */
+    public List<BookDto> searchBooks(String query, int limit) {
+        List<Long> ids = bookSearchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, BookDto> booksById = bookRepository.findDtosByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(BookDto::getId, Function.identity()));
+
+        /// Mantener el orden de relevancia del índice
+        return ids.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Obtiene varios libros por ID y/o ISBN, con categoría y creador en la misma consulta.
+     * Se lanza una sentencia IN por cada lista no vacía (cada una usa su índice).
+     *
+     * @param ids IDs de los libros (puede ser nulo)
+     * @param isbns ISBNs de los libros (puede ser nulo)
+     * @return libros en el orden de la petición, sin repetidos, y los IDs e ISBNs no encontrados.
+     */
+    public BookBatchResult getBooksBatch(List<Long> ids, List<String> isbns) {
+        List<Long> requestedIds = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        List<String> requestedIsbns = isbns == null ? List.of() : isbns.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<Long, BookDto> booksById = requestedIds.isEmpty() ? Map.of() : bookRepository.findDtosByIdIn(requestedIds)
+                .stream()
+                .collect(Collectors.toMap(BookDto::getId, Function.identity()));
+        Map<String, BookDto> booksByIsbn = requestedIsbns.isEmpty() ? Map.of() : bookRepository.findDtosByIsbnIn(requestedIsbns)
+                .stream()
+                .collect(Collectors.toMap(BookDto::getIsbn, Function.identity()));
+
+        /// Mantener el orden de la petición; un libro pedido por ID y por ISBN sale una vez
+        Map<Long, BookDto> books = new LinkedHashMap<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requestedIds) {
+            BookDto book = booksById.get(id);
+            if (book == null) {
+                missingIds.add(id);
+            } else {
+                books.putIfAbsent(book.getId(), book);
+            }
+        }
+
+        List<String> missingIsbns = new ArrayList<>();
+        for (String isbn : requestedIsbns) {
+            BookDto book = booksByIsbn.get(isbn);
+            if (book == null) {
+                missingIsbns.add(isbn);
+            } else {
+                books.putIfAbsent(book.getId(), book);
+            }
+        }
+
+        return new BookBatchResult(List.copyOf(books.values()), missingIds, missingIsbns);
+    }
+
+    /**
+     * Ajusta los contadores de las categorías tras actualizar un libro.
+     * Las copias disponibles no cambian al editar el libro, salvo que se mueva de categoría.
+     */
+    private void updateCategoryStats(Book book, Long previousCategoryId, int previousTotalCopies) {
+        Long categoryId = book.getCategory().getId();
+        if (!categoryId.equals(previousCategoryId)) {
+            /// Tras el flush la fila está bloqueada: las copias leídas ahora son las que se mueven
+            int availableCopies = bookRepository.findAvailableCopiesById(book.getId()).orElseThrow();
+            categoryStatsService.applyDeltas(Map.of(
+                    previousCategoryId, new long[]{-1, -previousTotalCopies, -availableCopies},
+                    categoryId, new long[]{1, book.getTotalCopies(), availableCopies}));
+        } else if (book.getTotalCopies() != previousTotalCopies) {
+            categoryStatsService.applyDelta(categoryId, 0, book.getTotalCopies() - previousTotalCopies, 0);
+        }
+    }
+
+    /**
+     * Ejecuta la escritura (con flush) y traduce las violaciones de restricciones a errores de dominio
+     * según el nombre de la restricción: el índice único del ISBN o la clave foránea de la categoría
+     * (borrada mientras tanto). Si el nombre no se reconoce, una clave duplicada se sigue tratando
+     * como ISBN repetido: es el único índice único de books además de la clave primaria.
+     * Cualquier otra violación se relanza tal cual.
+     *
+     * @param write escritura que hace flush y devuelve el libro guardado
+     * @param duplicateIsbnMessage mensaje si el ISBN ya está en uso
+     * @return libro guardado
+     * @throws RuntimeException si el ISBN está repetido o la categoría no existe
+     * @throws DataIntegrityViolationException si se viola cualquier otra restricción
+     */
+    private Book translateViolations(Supplier<Book> write, String duplicateIsbnMessage) {
+        try {
+            return write.get();
+        } catch (DataIntegrityViolationException e) {
+            ConstraintViolationException violation = violation(e);
+            String constraint = constraintName(violation);
+            if (constraint.contains(ISBN_UNIQUE_CONSTRAINT) || isDuplicateKey(e, violation)) {
+                throw new RuntimeException(duplicateIsbnMessage);
+            }
+            if (constraint.contains(CATEGORY_FOREIGN_KEY)) {
+                throw new RuntimeException("Categoria incorrecta");
+            }
+            throw e;
+        }
+    }
+
+    /// Violación de Hibernate en la cadena de causas, o null si no la hay
+    private static ConstraintViolationException violation(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    /// Nombre de la restricción violada en minúsculas (algunos drivers lo devuelven con el esquema), o "" si no se conoce
+    private static String constraintName(ConstraintViolationException violation) {
+        if (violation == null || violation.getConstraintName() == null) {
+            return "";
+        }
+        return violation.getConstraintName().toLowerCase(Locale.ROOT);
+    }
+
+    /// Clave duplicada según el tipo de excepción o el SQLState que clasifica el dialecto, sin depender del nombre
+    private static boolean isDuplicateKey(DataIntegrityViolationException e, ConstraintViolationException violation) {
+        return e instanceof DuplicateKeyException
+                || violation != null && violation.getKind() == ConstraintViolationException.ConstraintKind.UNIQUE;
+    }
+}
 
 
 
@@ -0,0 +1,74 @@
+package com.example.library_directo.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.StringJoiner;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión del catálogo (libros y categorías) para las respuestas condicionales HTTP.
+ * Se incrementa en cada cambio del catálogo; los listados usan la versión como ETag,
+ * de modo que un cliente con la versión actual recibe un 304 sin que se consulte la BD.
+ * El instante de arranque forma parte del ETag para que no se repitan tras un reinicio.
+ * La versión vive en la memoria de cada instancia y solo ve los cambios hechos a través de ella:
+ * con varias instancias detrás de un balanceador habría que compartirla (por ejemplo, con la
+ * última secuencia de catalog_changes) para que ninguna responda 304 con datos obsoletos.
+ * El detalle de un libro no depende de ella: su ETag sale de books.updated_at.
+ */
+@Component
+public class CatalogVersion {
+
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = startedAt;
+
+    /**
+     * Registra un cambio en el catálogo.
+     * Si hay una transacción en curso, la versión se incrementa al confirmarse,
+     * para no publicar un ETag nuevo antes de que los datos sean visibles.
+     */
+    public void markChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment();
+                }
+            });
+        } else {
+            increment();
+        }
+    }
+
+    /**
+     * Construye un ETag fuerte para la versión actual del catálogo.
+     *
+     * @param parts elementos que identifican la respuesta (recurso, cursor, tamaño...)
+     * @return ETag entre comillas
+     */
+    public String etag(Object... parts) {
+        StringJoiner joiner = new StringJoiner("-", "\"", "\"");
+        joiner.add(Long.toString(startedAt, 36));
+        joiner.add(Long.toString(version.get()));
+        for (Object part : parts) {
+            joiner.add(String.valueOf(part));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Fecha del último cambio del catálogo.
+     *
+     * @return milisegundos desde epoch
+     */
+    public long lastModified() {
+        return lastModified;
+    }
+
+    private void increment() {
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+}
@@ -1,28 +1,53 @@
 package com.example.library_directo.service;
 
+import com.example.library_directo.config.CacheConfig;
 import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.entity.CatalogEntityType;
 import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.ChangeOperation;
+import com.example.library_directo.repository.BookRepository;
 import com.example.library_directo.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Servicio para gestionar operaciones CRUD  de categorías.
+ * Las lecturas pasan por una caché en memoria que se invalida en cada escritura.
+ * Los métodos son de solo lectura salvo las escrituras, que declaran su propia transacción.
+ * Las lecturas cacheadas no abren transacción (SUPPORTS): un acierto de caché no pide conexión
+ * al pool, y en un fallo la consulta del repositorio usa su propia transacción de solo lectura.
  */
 
 @Service
+@Timed("library.service")
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final BookRepository bookRepository;
+    private final CatalogVersion catalogVersion;
+    private final CategoryStatsService categoryStatsService;
+    private final ChangeFeedService changeFeedService;
 
     /**
      * Crea una nueva categoría en el sistema.
      * @param createCategoryRequest datos de la categoría a crear.
      * @return RuntimeException si ya existe una categoría con ese nombre.
      */
+    @CacheEvict(cacheNames = CacheConfig.ALL_CATEGORIES, allEntries = true)
+    @Transactional
     public Category createCategory(CreateCategoryRequest createCategoryRequest) {
 
         /// Verificar duplicado
@@ -37,7 +62,11 @@ public class CategoryService {
                 .build();
 
         /// Guardar y devolver
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        categoryStatsService.createFor(saved.getId());
+        changeFeedService.record(CatalogEntityType.CATEGORY, saved.getId(), ChangeOperation.CREATED);
+        catalogVersion.markChanged();
+        return saved;
     }
 
     /**
@@ -45,6 +74,8 @@ public class CategoryService {
      *
      * @return lista de todas las categorías.
      */
+    @Cacheable(CacheConfig.ALL_CATEGORIES)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Category> getAllCategories() {
         return categoryRepository.findAll();
     }
@@ -56,20 +87,41 @@ public class CategoryService {
      * @return categoría encontrada.
      * @throws RuntimeException si la categoría no existe
      */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Category getCategoryById(Long id) {
         return categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Esta categoría no existe"));
     }
 
+    /**
+     * Busca una categoría por su ID usando la caché.
+     * Comparte la caché con getCategoryById; las categorías inexistentes no se cachean.
+     *
+     * @param id identificador de la categoría
+     * @return Optional con la categoría si existe.
+     */
+    @Cacheable(cacheNames = CacheConfig.CATEGORIES, key = "#id", unless = "#result == null")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<Category> findCategoryById(Long id) {
+        return categoryRepository.findById(id);
+    }
+
     /**
      * Actualiza una categoría ya existente
+     * Si cambia el nombre o la descripción se marcan como modificados sus libros,
+     * que la incluyen en su representación.
      *
      * @param id identificador de la categoría a actualizar.
      * @param createCategoryRequest nuevos datos de la categoría
      * @return categoría actuliazada
      * @throws RuntimeException si la categoría no existe o si el nuevo nombre ya está en uso por otra categoría.
      */
-
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ALL_CATEGORIES, allEntries = true)
+    })
+    @Transactional
     public Category updateCategory(Long id, CreateCategoryRequest createCategoryRequest) {
         Category category =getCategoryById(id);
 
@@ -82,10 +134,18 @@ public class CategoryService {
             }
         }
 
+        boolean renamed = !category.getName().equals(createCategoryRequest.getName())
+                || !Objects.equals(category.getDescription(), createCategoryRequest.getDescription());
         category.setName(createCategoryRequest.getName());
         category.setDescription(createCategoryRequest.getDescription());
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        if (renamed) {
+            bookRepository.touchByCategoryId(id, LocalDateTime.now());
+        }
+        changeFeedService.record(CatalogEntityType.CATEGORY, id, ChangeOperation.UPDATED);
+        catalogVersion.markChanged();
+        return saved;
     }
 
     /**
@@ -93,9 +153,17 @@ public class CategoryService {
      * @param id identificador de la categoría a eliminar
      * @throws  RuntimeException si la categoría no existe.
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.CATEGORIES, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ALL_CATEGORIES, allEntries = true)
+    })
+    @Transactional
     public void deleteCategory(Long id) {
         Category category = getCategoryById(id);
-        categoryRepository.deleteById(id);
+        categoryStatsService.deleteFor(id);
+        categoryRepository.delete(category);
+        changeFeedService.record(CatalogEntityType.CATEGORY, id, ChangeOperation.DELETED);
+        catalogVersion.markChanged();
     }
 }
 
@@ -0,0 +1,122 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.category.CategorySummaryDto;
+import com.example.library_directo.entity.CategoryStats;
+import com.example.library_directo.repository.CategoryStatsRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Servicio que mantiene los contadores agregados de cada categoría.
+ * Las escrituras de libros llaman a este servicio dentro de su propia transacción,
+ * así los contadores cambian (o se deshacen) a la vez que los libros.
+ * <p>
+ * Contención: cada escritura deja bloqueada la fila de contadores de su categoría hasta el commit,
+ * así que las escrituras de libros de una misma categoría se serializan entre sí (las de categorías
+ * distintas no). Un bloque de la carga masiva retiene las filas de sus categorías durante todo el bloque.
+ * Cuando una transacción toca varias categorías las bloquea en orden de ID (applyDeltas):
+ * dos transacciones cruzadas, como un libro movido de A a B y otro de B a A, esperan una a la otra
+ * en lugar de interbloquearse.
+ */
+@Service
+@Timed("library.service")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class CategoryStatsService {
+
+    private final CategoryStatsRepository categoryStatsRepository;
+
+    /**
+     * Suma los incrementos indicados a los contadores de una categoría.
+     * Si la categoría aún no tiene contadores, se crean con esos valores.
+     *
+     * @param categoryId identificador de la categoría
+     * @param books incremento del número de libros
+     * @param totalCopies incremento de las copias totales
+     * @param availableCopies incremento de las copias disponibles
+     */
+    @Transactional
+    public void applyDelta(Long categoryId, long books, long totalCopies, long availableCopies) {
+        if (categoryStatsRepository.applyDelta(categoryId, books, totalCopies, availableCopies) == 0) {
+            categoryStatsRepository.save(new CategoryStats(categoryId, books, totalCopies, availableCopies));
+        }
+    }
+
+    /**
+     * Suma los incrementos de varias categorías, en orden de ID de categoría.
+     *
+     * @param deltas incrementos por categoría: libros, copias totales y copias disponibles
+     */
+    @Transactional
+    public void applyDeltas(Map<Long, long[]> deltas) {
+        new TreeMap<>(deltas).forEach((categoryId, delta) ->
+                applyDelta(categoryId, delta[0], delta[1], delta[2]));
+    }
+
+    /**
+     * Resta una copia disponible a la categoría del libro prestado.
+     *
+     * @param bookId identificador del libro
+     */
+    @Transactional
+    public void copyCheckedOut(Long bookId) {
+        categoryStatsRepository.applyAvailableDeltaByBookId(bookId, -1);
+    }
+
+    /**
+     * Suma una copia disponible a la categoría del libro devuelto.
+     *
+     * @param bookId identificador del libro
+     */
+    @Transactional
+    public void copyReturned(Long bookId) {
+        categoryStatsRepository.applyAvailableDeltaByBookId(bookId, 1);
+    }
+
+    /**
+     * Crea los contadores (a cero) de una categoría nueva.
+     *
+     * @param categoryId identificador de la categoría
+     */
+    @Transactional
+    public void createFor(Long categoryId) {
+        categoryStatsRepository.save(new CategoryStats(categoryId, 0L, 0L, 0L));
+    }
+
+    /**
+     * Elimina los contadores de una categoría que se va a borrar.
+     *
+     * @param categoryId identificador de la categoría
+     */
+    @Transactional
+    public void deleteFor(Long categoryId) {
+        categoryStatsRepository.deleteById(categoryId);
+    }
+
+    /**
+     * Obtiene el resumen de todas las categorías.
+     *
+     * @return resumen de cada categoría ordenado por nombre.
+     */
+    public List<CategorySummaryDto> getSummaries() {
+        return categoryStatsRepository.findSummaries();
+    }
+
+    /**
+     * Obtiene el resumen de una categoría.
+     *
+     * @param categoryId identificador de la categoría
+     * @return resumen de la categoría
+     * @throws RuntimeException si la categoría no existe
+     */
+    public CategorySummaryDto getSummary(Long categoryId) {
+        return categoryStatsRepository.findSummaryByCategoryId(categoryId)
+                .orElseThrow(() -> new RuntimeException("Esta categoría no existe"));
+    }
+}
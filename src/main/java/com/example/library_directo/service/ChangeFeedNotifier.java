@@ -0,0 +1,64 @@
+package com.example.library_directo.service;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Despierta a las peticiones long-poll del feed cuando se confirma un cambio en esta instancia.
+ * Usa un ReentrantLock en lugar de synchronized para no fijar los hilos virtuales a su portador
+ * mientras esperan.
+ */
+@Component
+public class ChangeFeedNotifier {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private long signals;
+
+    /**
+     * @return contador de avisos actual, para pasarlo después a await
+     */
+    public long current() {
+        lock.lock();
+        try {
+            return signals;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Avisa de un cambio confirmado a todas las peticiones en espera.
+     */
+    public void signal() {
+        lock.lock();
+        try {
+            signals++;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera hasta que haya un aviso posterior a seen o pase el tiempo indicado.
+     *
+     * @param seen contador obtenido con current antes de consultar la BD
+     * @param timeout espera máxima
+     * @throws InterruptedException si se interrumpe el hilo
+     */
+    public void await(long seen, Duration timeout) throws InterruptedException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            while (signals == seen && nanos > 0) {
+                nanos = changed.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.library_directo.service;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Configuración del feed de cambios del catálogo (app.changes.*).
+ *
+ * @param maxWait espera máxima de una petición long-poll sin cambios
+ * @param pollInterval cada cuánto se vuelve a consultar la BD durante la espera
+ *                     (cambios hechos en otras instancias, que no avisan a esta)
+ * @param gapGrace tiempo durante el que un hueco en la secuencia se trata como una transacción en curso,
+ *                 contado desde que esta instancia lo ve; debe superar la transacción de escritura más larga
+ * @param retention antigüedad a partir de la cual se compactan los cambios reemplazados
+ */
+@ConfigurationProperties("app.changes")
+public record ChangeFeedProperties(
+        @DefaultValue("30s") Duration maxWait,
+        @DefaultValue("1s") Duration pollInterval,
+        @DefaultValue("2m") Duration gapGrace,
+        @DefaultValue("7d") Duration retention
+) {
+}
@@ -0,0 +1,228 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.change.CatalogChangeDto;
+import com.example.library_directo.dto.change.ChangeFeedDto;
+import com.example.library_directo.entity.CatalogChange;
+import com.example.library_directo.entity.CatalogEntityType;
+import com.example.library_directo.entity.ChangeOperation;
+import com.example.library_directo.repository.CatalogChangeRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feed de cambios del catálogo basado en un outbox transaccional.
+ * Las escrituras de libros y categorías registran aquí cada cambio dentro de su transacción;
+ * los consumidores leen el feed por número de secuencia en lugar de volver a pedir el catálogo.
+ * Las consultas del feed no abren transacción propia: cada lectura usa la del repositorio,
+ * así una petición long-poll no retiene una conexión mientras espera.
+ */
+@Slf4j
+@Service
+@Timed("library.service")
+@RequiredArgsConstructor
+public class ChangeFeedService {
+
+    /// IDs borrados por sentencia al compactar
+    private static final int COMPACTION_BATCH_SIZE = 1000;
+
+    private static final String INSERT_SQL = "insert into catalog_changes "
+            + "(entity_type, entity_id, operation, changed_at) values (?, ?, ?, ?)";
+
+    private static final String WATERMARK_SQL = "select watermark from catalog_change_compaction where id = 1";
+
+    private static final String RAISE_WATERMARK_SQL = "update catalog_change_compaction "
+            + "set watermark = greatest(watermark, ?) where id = 1";
+
+    private final CatalogChangeRepository catalogChangeRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedNotifier changeFeedNotifier;
+    private final ChangeFeedProperties properties;
+
+    /// Huecos de la secuencia vistos por esta instancia: primera secuencia que falta → System.nanoTime()
+    /// de la primera vez que se vio. Su antigüedad no depende de los relojes de otras instancias.
+    /// Solo guarda huecos por encima de la marca de agua de la compactación.
+    private final Map<Long, Long> observedGaps = new ConcurrentHashMap<>();
+
+    /**
+     * Registra un cambio en el outbox. Debe llamarse dentro de la transacción del cambio.
+     *
+     * @param entityType tipo de la entidad modificada
+     * @param entityId identificador de la entidad
+     * @param operation operación realizada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(CatalogEntityType entityType, Long entityId, ChangeOperation operation) {
+        catalogChangeRepository.save(CatalogChange.builder()
+                .entityType(entityType)
+                .entityId(entityId)
+                .operation(operation)
+                .changedAt(LocalDateTime.now())
+                .build());
+        notifyAfterCommit();
+    }
+
+    /**
+     * Registra la misma operación para varias entidades en un lote JDBC (carga masiva).
+     * Debe llamarse dentro de la transacción del cambio.
+     *
+     * @param entityType tipo de las entidades modificadas
+     * @param entityIds identificadores de las entidades
+     * @param operation operación realizada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(CatalogEntityType entityType, List<Long> entityIds, ChangeOperation operation) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, entityIds, entityIds.size(), (ps, entityId) -> {
+            ps.setString(1, entityType.name());
+            ps.setLong(2, entityId);
+            ps.setString(3, operation.name());
+            ps.setTimestamp(4, now);
+        });
+        notifyAfterCommit();
+    }
+
+    /**
+     * Obtiene los cambios posteriores a un número de secuencia.
+     * Si no hay ninguno, espera (long-poll) hasta que se confirme un cambio o pase el tiempo indicado.
+     *
+     * @param since última secuencia leída por el consumidor (0 para empezar desde el principio)
+     * @param limit número máximo de cambios a leer
+     * @param wait espera máxima si no hay cambios (se limita a app.changes.max-wait)
+     * @return lote de cambios con la secuencia para la siguiente petición.
+     */
+    public ChangeFeedDto getChanges(long since, int limit, Duration wait) {
+        long deadline = System.nanoTime() + min(wait, properties.maxWait()).toNanos();
+        while (true) {
+            /// Leer el contador antes de consultar: un cambio confirmado entre medias no se pierde
+            long seen = changeFeedNotifier.current();
+            ChangeFeedDto feed = readBatch(since, limit);
+            long remaining = deadline - System.nanoTime();
+            if (!feed.getChanges().isEmpty() || remaining <= 0) {
+                return feed;
+            }
+
+            /// Los cambios de otras instancias no avisan: se vuelve a consultar cada pollInterval
+            try {
+                changeFeedNotifier.await(seen, min(properties.pollInterval(), Duration.ofNanos(remaining)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return feed;
+            }
+        }
+    }
+
+    /**
+     * Compacta el outbox: borra los cambios más antiguos que la retención que ya tienen
+     * un cambio posterior de la misma entidad. El último cambio de cada entidad se conserva,
+     * así un consumidor que empiece desde 0 sigue viendo el estado final del catálogo.
+     * Antes de borrar se sube la marca de agua hasta la mayor secuencia anterior a la retención:
+     * los huecos que deja el borrado quedan por debajo y los lectores no esperan en ellos.
+     * Cada lote se borra en su propia transacción.
+     */
+    @Scheduled(fixedDelayString = "${app.changes.compaction-interval:PT1H}")
+    public void compact() {
+        LocalDateTime before = LocalDateTime.now().minus(properties.retention());
+        Long considered = jdbcTemplate.queryForObject(
+                "select max(id) from catalog_changes where changed_at < ?", Long.class, Timestamp.valueOf(before));
+        if (considered == null) {
+            return;
+        }
+        jdbcTemplate.update(RAISE_WATERMARK_SQL, considered);
+
+        int removed = 0;
+        List<Long> ids;
+        do {
+            ids = catalogChangeRepository.findSupersededIds(before, Limit.of(COMPACTION_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                catalogChangeRepository.deleteAllByIdInBatch(ids);
+                removed += ids.size();
+            }
+        } while (ids.size() == COMPACTION_BATCH_SIZE);
+
+        if (removed > 0) {
+            log.info("{} cambios del catálogo compactados", removed);
+        }
+
+        /// Los huecos bajo la marca de agua ya no necesitan contar su antigüedad
+        observedGaps.keySet().removeIf(sequence -> sequence <= considered);
+    }
+
+    /**
+     * Lee un lote de cambios y deja solo el último de cada entidad.
+     * Las secuencias se asignan al insertar, no al confirmar: un hueco puede ser una transacción
+     * aún en curso con una secuencia menor. Los huecos bajo la marca de agua son de la compactación
+     * y se saltan sin más. Con el resto, el lote se corta en el hueco hasta que se rellene
+     * o hasta que esta instancia lleve gapGrace viéndolo; entonces se da por deshecha (rollback).
+     * Si esa transacción confirmara después, sus cambios no llegarían a los consumidores que
+     * ya han pasado el hueco: gapGrace debe superar la duración de cualquier transacción de escritura.
+     */
+    private ChangeFeedDto readBatch(long since, int limit) {
+        List<CatalogChangeDto> rows = catalogChangeRepository.findDtosAfter(since, Limit.of(limit));
+        long now = System.nanoTime();
+
+        Map<String, CatalogChangeDto> latest = new LinkedHashMap<>();
+        long last = since;
+        long watermark = -1;
+        boolean stoppedAtGap = false;
+        for (CatalogChangeDto row : rows) {
+            if (row.getSequence() != last + 1) {
+                /// La marca de agua solo se consulta si el lote tiene algún hueco
+                if (watermark < 0) {
+                    watermark = jdbcTemplate.queryForObject(WATERMARK_SQL, Long.class);
+                }
+                /// Solo cuenta lo que falta por encima de la marca de agua
+                long missing = Math.max(last, watermark) + 1;
+                if (row.getSequence() > missing && !isGapSettled(missing, now)) {
+                    stoppedAtGap = true;
+                    break;
+                }
+            }
+            last = row.getSequence();
+
+            /// Reinsertar para que el orden sea el del último cambio de cada entidad
+            String key = row.getEntityType() + ":" + row.getEntityId();
+            latest.remove(key);
+            latest.put(key, row);
+        }
+
+        boolean hasMore = !stoppedAtGap && rows.size() == limit;
+        return new ChangeFeedDto(List.copyOf(latest.values()), last, hasMore);
+    }
+
+    /// Un hueco se da por cerrado cuando esta instancia lleva gapGrace viéndolo
+    private boolean isGapSettled(long missingSequence, long now) {
+        long firstSeen = observedGaps.computeIfAbsent(missingSequence, sequence -> now);
+        return now - firstSeen >= properties.gapGrace().toNanos();
+    }
+
+    /// Despierta a las peticiones en espera cuando el cambio sea visible
+    private void notifyAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeFeedNotifier.signal();
+            }
+        });
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.loan.LoanDto;
+import com.example.library_directo.entity.Loan;
+import com.example.library_directo.entity.LoanStatus;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.LoanRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Servicio para gestionar los préstamos de libros.
+ * Cada cambio de estado (préstamo, renovación, devolución) se resuelve con
+ * sentencias condicionales, sin leer antes las entidades.
+ * Las consultas son transacciones de solo lectura.
+ */
+@Slf4j
+@Service
+@Timed("library.service")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class LoanService {
+
+    /// Duración de un préstamo y de cada renovación
+    private static final Duration LOAN_PERIOD = Duration.ofDays(14);
+
+    /// Número máximo de renovaciones por préstamo
+    private static final int MAX_RENEWALS = 2;
+
+    private final LoanRepository loanRepository;
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+
+    /**
+     * Presta una copia de un libro a un usuario.
+     * Resta una copia disponible con un UPDATE condicional e inserta el préstamo,
+     * ambos en la misma transacción.
+     *
+     * @param bookId identificador del libro
+     * @param user usuario que se lleva el libro
+     * @return préstamo creado en formato DTO
+     * @throws RuntimeException si el libro no existe o no quedan copias disponibles
+     */
+    @Transactional
+    public LoanDto borrow(Long bookId, User user) {
+        bookService.checkoutCopy(bookId);
+
+        Loan loan = loanRepository.save(Loan.builder()
+                .book(bookRepository.getReferenceById(bookId))
+                .user(user)
+                .dueDate(LocalDateTime.now().plus(LOAN_PERIOD))
+                .renewals(0)
+                .status(LoanStatus.ACTIVE)
+                .build());
+
+        return new LoanDto(
+                loan.getId(),
+                bookId,
+                user.getId(),
+                loan.getBorrowedAt(),
+                loan.getDueDate(),
+                null,
+                loan.getRenewals(),
+                loan.getStatus()
+        );
+    }
+
+    /**
+     * Renueva un préstamo del usuario ampliando la fecha de devolución en un periodo,
+     * contado desde la fecha de devolución actual: renovar antes de tiempo no acorta el préstamo.
+     *
+     * @param loanId identificador del préstamo
+     * @param user usuario que renueva
+     * @throws RuntimeException si el préstamo no es del usuario, está vencido o devuelto,
+     *                          o ha alcanzado el máximo de renovaciones
+     */
+    @Transactional
+    public void renew(Long loanId, User user) {
+        if (loanRepository.renew(loanId, user.getId(), LOAN_PERIOD.toDays(), MAX_RENEWALS) == 0) {
+            throw new RuntimeException("No se puede renovar este préstamo");
+        }
+    }
+
+    /**
+     * Registra la devolución de un préstamo y suma la copia al libro.
+     *
+     * @param loanId identificador del préstamo
+     * @throws RuntimeException si el préstamo no existe o ya estaba devuelto
+     */
+    @Transactional
+    public void returnLoan(Long loanId) {
+        Long bookId = loanRepository.findBookIdById(loanId)
+                .orElseThrow(() -> new RuntimeException("Este préstamo no existe"));
+
+        if (loanRepository.markReturned(loanId, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Este préstamo ya está devuelto");
+        }
+
+        bookService.returnCopy(bookId);
+    }
+
+    /**
+     * Obtiene los préstamos en curso de un usuario.
+     *
+     * @param user usuario
+     * @return préstamos activos o vencidos, ordenados por fecha de devolución.
+     */
+    public List<LoanDto> getOpenLoans(User user) {
+        return loanRepository.findOpenLoansByUserId(user.getId());
+    }
+
+    /**
+     * Obtiene una página de préstamos vencidos (keyset sobre el ID).
+     *
+     * @param afterId ID del último préstamo de la página anterior
+     * @param size número máximo de préstamos a devolver
+     * @return préstamos vencidos ordenados por ID.
+     */
+    public List<LoanDto> getOverdueLoans(Long afterId, int size) {
+        return loanRepository.findOverdueAfter(afterId, Limit.of(size));
+    }
+
+    /**
+     * Marca como vencidos los préstamos cuya fecha de devolución ha pasado.
+     * Se ejecuta periódicamente; cada ejecución solo toca los préstamos
+     * que han vencido desde la anterior, a través del índice (status, due_date).
+     */
+    @Scheduled(fixedDelayString = "${app.loans.overdue-scan-interval:PT5M}")
+    @Transactional
+    public void markOverdueLoans() {
+        int overdue = loanRepository.markOverdue(LocalDateTime.now());
+        if (overdue > 0) {
+            log.info("{} préstamos marcados como vencidos", overdue);
+        }
+    }
+}
@@ -1,25 +1,40 @@
 package com.example.library_directo.service;
 
 
+import com.example.library_directo.config.CacheConfig;
 import com.example.library_directo.entity.User;
 import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.security.AuthenticatedPrincipal;
 import com.example.library_directo.security.JwtUtil;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Servicio para gestionar operaciones de usuarios
+ * Las consultas son transacciones de solo lectura; save abre su propia transacción.
+ * loadPrincipal no abre transacción: un acierto de caché no pide conexión al pool.
  */
 @Service
+@Timed("library.service")
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class UserService {
 
-    private UserRepository userRepository;
+    private final UserRepository userRepository;
     private final JwtUtil jwtUtil;
+    private final CacheManager cacheManager;
 
     /**
      * Busca un usuario por su email
@@ -30,6 +45,23 @@ public class UserService {
         return userRepository.findByEmail(email);
     }
 
+    /**
+     * Obtiene los datos de autenticación (email y autoridades) de un usuario.
+     * El resultado se cachea por email para evitar una consulta por cada petición JWT.
+     *
+     * @param email email del usuario
+     * @return Optional con el usuario autenticado si existe.
+     */
+    @Cacheable(cacheNames = CacheConfig.PRINCIPALS, key = "#email", unless = "#result == null")
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<AuthenticatedPrincipal> loadPrincipal(String email) {
+        return userRepository.findByEmail(email)
+                .map(user -> new AuthenticatedPrincipal(
+                        user.getEmail(),
+                        List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                ));
+    }
+
     /**
      * Verifica si existe un usuario con el email proporcionado.
      *
@@ -42,10 +74,19 @@ public class UserService {
 
     /**
      * Guarda un usuario en la base de datos
+     * Invalida sus datos de autenticación cacheados (por si cambia el rol); si cambia el email,
+     * también los cacheados con el email anterior.
      * @param user usuario a guardar
      * @return usuario guardado
      */
+    @CacheEvict(cacheNames = CacheConfig.PRINCIPALS, key = "#user.email")
+    @Transactional
     public User save(User user) {
+        if (user.getId() != null) {
+            userRepository.findEmailById(user.getId())
+                    .filter(previousEmail -> !previousEmail.equals(user.getEmail()))
+                    .ifPresent(previousEmail -> cacheManager.getCache(CacheConfig.PRINCIPALS).evict(previousEmail));
+        }
         return userRepository.save(user);
     }
 
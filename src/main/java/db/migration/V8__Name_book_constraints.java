@@ -0,0 +1,64 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Da nombre fijo a las restricciones de books que BookService traduce a errores de dominio:
+ * uk_books_isbn y fk_books_category. En una BD registrada como versión 1 (baseline-on-migrate)
+ * tienen el nombre que generó Hibernate y en una nueva el que generó la BD, así que se buscan
+ * por columna en information_schema y se sustituyen por la misma restricción con el nombre fijo.
+ * En SQL no se puede, porque el nombre actual no se conoce. Requiere MySQL 8.0.19 o posterior (DROP CONSTRAINT).
+ */
+public class V8__Name_book_constraints extends BaseJavaMigration {
+
+    private static final String FIND_CONSTRAINT_SQL = "select tc.constraint_name "
+            + "from information_schema.table_constraints tc "
+            + "join information_schema.key_column_usage k on k.constraint_schema = tc.constraint_schema "
+            + "and k.constraint_name = tc.constraint_name and k.table_name = tc.table_name "
+            + "where tc.table_schema = ? and tc.table_name = 'books' "
+            + "and tc.constraint_type = ? and k.column_name = ?";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        rename(connection, "UNIQUE", "isbn", "uk_books_isbn", "UNIQUE (isbn)");
+        rename(connection, "FOREIGN KEY", "category_id", "fk_books_category",
+                "FOREIGN KEY (category_id) REFERENCES categories (id)");
+    }
+
+    private void rename(Connection connection, String type, String column, String name, String definition)
+            throws SQLException {
+        String current = findConstraint(connection, type, column);
+        if (name.equalsIgnoreCase(current)) {
+            return;
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            if (current != null) {
+                String quote = connection.getMetaData().getIdentifierQuoteString();
+                statement.execute("ALTER TABLE books DROP CONSTRAINT " + quote + current + quote);
+            }
+            statement.execute("ALTER TABLE books ADD CONSTRAINT " + name + " " + definition);
+        }
+    }
+
+    private String findConstraint(Connection connection, String type, String column) throws SQLException {
+        /// MySQL llama catálogo a la BD; H2 usa esquemas
+        String schema = connection.getSchema() != null ? connection.getSchema() : connection.getCatalog();
+        try (PreparedStatement statement = connection.prepareStatement(FIND_CONSTRAINT_SQL)) {
+            statement.setString(1, schema);
+            statement.setString(2, type);
+            statement.setString(3, column);
+            try (ResultSet rows = statement.executeQuery()) {
+                return rows.next() ? rows.getString(1) : null;
+            }
+        }
+    }
+}
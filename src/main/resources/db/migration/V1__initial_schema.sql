@@ -0,0 +1,48 @@
+-- Esquema inicial: el mismo que generaba Hibernate con ddl-auto=update antes de las migraciones.
+-- En una BD ya existente, Flyway la registra como versión 1 (baseline-on-migrate)
+-- y solo aplica las migraciones posteriores: todo lo nuevo va en V2 o después.
+-- Las restricciones no tienen nombre fijo (Hibernate generaba uno por BD); V8 nombra
+-- las de books que se traducen a errores de dominio.
+
+CREATE TABLE users (
+    id         BIGINT       NOT NULL AUTO_INCREMENT,
+    email      VARCHAR(255) NOT NULL,
+    password   VARCHAR(255),
+    name       VARCHAR(255) NOT NULL,
+    picture    VARCHAR(500),
+    role       ENUM('USER', 'LIBRARIAN', 'ADMIN') NOT NULL,
+    provider   ENUM('GOOGLE', 'LOCAL') NOT NULL,
+    created_at DATETIME(6),
+    PRIMARY KEY (id),
+    UNIQUE (email)
+);
+
+CREATE TABLE categories (
+    id          BIGINT       NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(255) NOT NULL,
+    description TEXT,
+    created_at  DATETIME(6),
+    PRIMARY KEY (id),
+    UNIQUE (name)
+);
+
+CREATE TABLE books (
+    id               BIGINT       NOT NULL AUTO_INCREMENT,
+    isbn             VARCHAR(13)  NOT NULL,
+    title            VARCHAR(255) NOT NULL,
+    author           VARCHAR(255) NOT NULL,
+    publisher        VARCHAR(255),
+    publication_year INT,
+    description      VARCHAR(255),
+    cover_image      VARCHAR(500),
+    total_copies     INT          NOT NULL,
+    available_copies INT          NOT NULL,
+    category_id      BIGINT       NOT NULL,
+    created_by       BIGINT       NOT NULL,
+    created_at       DATETIME(6),
+    updated_at       DATETIME(6),
+    PRIMARY KEY (id),
+    UNIQUE (isbn),
+    FOREIGN KEY (category_id) REFERENCES categories (id),
+    FOREIGN KEY (created_by) REFERENCES users (id)
+);
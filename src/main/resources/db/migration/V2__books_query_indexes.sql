@@ -0,0 +1,10 @@
+-- Índices secundarios para las consultas del catálogo:
+--   title            -> findByTitle
+--   author           -> findByAuthor
+--   category + title -> libros de una categoría ordenados por título (cubre también la FK)
+--   created_at       -> novedades ordenadas por fecha de alta
+
+CREATE INDEX idx_books_title ON books (title);
+CREATE INDEX idx_books_author ON books (author);
+CREATE INDEX idx_books_category_title ON books (category_id, title);
+CREATE INDEX idx_books_created_at ON books (created_at);
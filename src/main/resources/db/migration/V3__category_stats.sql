@@ -0,0 +1,23 @@
+-- Contadores por categoría para el resumen del catálogo.
+-- Se mantienen de forma incremental en cada alta, cambio, baja, préstamo y devolución
+-- de libros, así el resumen no necesita un GROUP BY sobre books en cada petición.
+-- La carga inicial sí lo hace, una única vez, con los libros existentes.
+
+CREATE TABLE category_stats (
+    category_id      BIGINT NOT NULL,
+    book_count       BIGINT NOT NULL,
+    total_copies     BIGINT NOT NULL,
+    available_copies BIGINT NOT NULL,
+    PRIMARY KEY (category_id),
+    CONSTRAINT fk_category_stats_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+INSERT INTO category_stats (category_id, book_count, total_copies, available_copies)
+SELECT c.id, COUNT(b.id), COALESCE(SUM(b.total_copies), 0), COALESCE(SUM(b.available_copies), 0)
+FROM categories c
+LEFT JOIN books b ON b.category_id = c.id
+GROUP BY c.id;
+
+-- Listado de libros de una categoría paginado por ID: InnoDB añade la clave primaria
+-- al índice secundario, así que (category_id) ya sirve para "category_id = ? AND id > ? ORDER BY id".
+CREATE INDEX idx_books_category ON books (category_id);
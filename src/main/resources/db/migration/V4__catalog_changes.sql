@@ -0,0 +1,17 @@
+-- Outbox de cambios del catálogo para los consumidores (búsqueda, recomendaciones, cachés).
+-- Cada alta, cambio o baja de un libro o una categoría inserta una fila en la misma
+-- transacción; el ID autoincremental es el número de secuencia del feed (/api/changes?since=).
+--   entity_type + entity_id -> compactación (cambios anteriores de la misma entidad)
+--   changed_at              -> compactación (solo cambios más antiguos que la retención)
+
+CREATE TABLE catalog_changes (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    entity_type ENUM('BOOK', 'CATEGORY') NOT NULL,
+    entity_id   BIGINT      NOT NULL,
+    operation   ENUM('CREATED', 'UPDATED', 'DELETED') NOT NULL,
+    changed_at  DATETIME(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_catalog_changes_entity ON catalog_changes (entity_type, entity_id);
+CREATE INDEX idx_catalog_changes_changed_at ON catalog_changes (changed_at);
@@ -0,0 +1,14 @@
+-- Sincronización incremental del catálogo (/api/books/delta?since=):
+--   books.updated_at        -> libros creados o modificados desde el token del cliente
+--   book_tombstones         -> libros borrados desde el token (la fila de books ya no existe)
+-- Las lápidas se purgan tras la retención; un token más antiguo obliga a una sincronización completa.
+
+CREATE INDEX idx_books_updated_at ON books (updated_at);
+
+CREATE TABLE book_tombstones (
+    book_id    BIGINT      NOT NULL,
+    deleted_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (book_id)
+);
+
+CREATE INDEX idx_book_tombstones_deleted_at ON book_tombstones (deleted_at);
@@ -0,0 +1,12 @@
+-- Marca de agua de la compactación del feed de cambios (una única fila).
+-- La compactación borra cambios reemplazados y deja huecos en la secuencia; antes de borrar
+-- guarda aquí la mayor secuencia que ha considerado. Los lectores dan por cerrado al momento
+-- cualquier hueco por debajo, en todas las instancias, sin esperar a gapGrace.
+
+CREATE TABLE catalog_change_compaction (
+    id        TINYINT NOT NULL,
+    watermark BIGINT  NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO catalog_change_compaction (id, watermark) VALUES (1, 0);
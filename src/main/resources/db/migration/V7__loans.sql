@@ -0,0 +1,21 @@
+-- Préstamos de ejemplares:
+--   status + due_date -> barrido de préstamos vencidos
+--   user + status     -> préstamos activos de un usuario
+-- Las BD que ya pasaron por ddl-auto=update con la entidad Loan tienen la tabla y sus índices:
+-- IF NOT EXISTS la respeta, por eso los índices van dentro del CREATE TABLE.
+
+CREATE TABLE IF NOT EXISTS loans (
+    id          BIGINT      NOT NULL AUTO_INCREMENT,
+    book_id     BIGINT      NOT NULL,
+    user_id     BIGINT      NOT NULL,
+    borrowed_at DATETIME(6),
+    due_date    DATETIME(6) NOT NULL,
+    returned_at DATETIME(6),
+    renewals    INT         NOT NULL,
+    status      ENUM('ACTIVE', 'OVERDUE', 'RETURNED') NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_loans_status_due_date (status, due_date),
+    INDEX idx_loans_user_status (user_id, status),
+    CONSTRAINT fk_loans_book FOREIGN KEY (book_id) REFERENCES books (id),
+    CONSTRAINT fk_loans_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
@@ -0,0 +1,126 @@
+package com.example.library_directo.benchmark;
+
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookField;
+import com.example.library_directo.dto.category.CategoryDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide la serialización con Jackson de listas de BookDto de distintos tamaños,
+ * y la de las mismas listas con solo los campos de un listado (fields=title,author).
+ * Al preparar cada tamaño imprime los bytes de ambas respuestas y la reducción.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookDtoSerializationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int size;
+
+    /// Campos de una pantalla de listado
+    private static final Set<BookField> LIST_FIELDS = EnumSet.of(BookField.ID, BookField.TITLE, BookField.AUTHOR);
+
+    private ObjectMapper objectMapper;
+    private List<BookDto> books;
+    private List<Map<String, Object>> listBooks;
+
+    @Setup
+    public void setUp() {
+        objectMapper = JsonMapper.builder().build();
+        books = sampleBooks(size);
+        listBooks = sparseBooks(books, LIST_FIELDS);
+
+        int fullBytes = objectMapper.writeValueAsBytes(books).length;
+        int listBytes = objectMapper.writeValueAsBytes(listBooks).length;
+        System.out.printf("%n[size=%d] completo=%d bytes, fields=title,author=%d bytes (-%.0f%%)%n",
+                size, fullBytes, listBytes, 100.0 * (fullBytes - listBytes) / fullBytes);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return objectMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] serializeListFieldsJson() {
+        return objectMapper.writeValueAsBytes(listBooks);
+    }
+
+    /// Misma forma que devuelve BookRepositoryCustom: mapas con solo los campos pedidos
+    static List<Map<String, Object>> sparseBooks(List<BookDto> books, Set<BookField> fields) {
+        List<Map<String, Object>> sparse = new ArrayList<>(books.size());
+        for (BookDto book : books) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (BookField field : fields) {
+                row.put(field.getFieldName(), switch (field) {
+                    case ID -> book.getId();
+                    case ISBN -> book.getIsbn();
+                    case TITLE -> book.getTitle();
+                    case AUTHOR -> book.getAuthor();
+                    case PUBLISHER -> book.getPublisher();
+                    case PUBLICATION_YEAR -> book.getPublicationYear();
+                    case DESCRIPTION -> book.getDescription();
+                    case COVER_IMAGE -> book.getCoverImage();
+                    case TOTAL_COPIES -> book.getTotalCopies();
+                    case AVAILABLE_COPIES -> book.getAvailableCopies();
+                    case CATEGORY -> book.getCategory();
+                    case CREATED_BY_NAME -> book.getCreatedByName();
+                });
+            }
+            sparse.add(row);
+        }
+        return sparse;
+    }
+
+    /// Genera una lista de libros con datos representativos del catálogo
+    static List<BookDto> sampleBooks(int size) {
+        List<CategoryDto> categories = List.of(
+                new CategoryDto(1L, "Ficción", "Novelas y relatos"),
+                new CategoryDto(2L, "Ciencia", "Divulgación científica"),
+                new CategoryDto(3L, "Historia", "Ensayos históricos")
+        );
+
+        List<BookDto> books = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            books.add(new BookDto(
+                    (long) i + 1,
+                    String.format("978%010d", i),
+                    "Título del libro número " + i,
+                    "Autor " + (i % 500),
+                    "Editorial " + (i % 50),
+                    1950 + (i % 70),
+                    "Descripción o sinopsis del libro número " + i + " con algo de texto adicional.",
+                    "https://covers.example.com/" + i + ".jpg",
+                    5,
+                    i % 6,
+                    categories.get(i % categories.size()),
+                    "Librarian"
+            ));
+        }
+        return books;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.library_directo.benchmark;
+
+import com.example.library_directo.dto.book.BookDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compara el coste de CPU y los bytes en la red de un listado de BookDto
+ * en JSON y en CBOR, sin comprimir y con gzip (como lo envía Tomcat con server.compression).
+ * Al preparar cada tamaño imprime los bytes de cada formato y la reducción respecto a JSON.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookListEncodingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private List<BookDto> books;
+
+    @Setup
+    public void setUp() {
+        jsonMapper = JsonMapper.builder().build();
+        cborMapper = CBORMapper.builder().build();
+        books = BookDtoSerializationBenchmark.sampleBooks(size);
+
+        byte[] json = jsonMapper.writeValueAsBytes(books);
+        byte[] cbor = cborMapper.writeValueAsBytes(books);
+        int jsonGzip = gzip(json).length;
+        int cborGzip = gzip(cbor).length;
+        System.out.printf("%n[size=%d] json=%d bytes, cbor=%d (-%.0f%%), json+gzip=%d (-%.0f%%), cbor+gzip=%d (-%.0f%%)%n",
+                size, json.length,
+                cbor.length, saving(json.length, cbor.length),
+                jsonGzip, saving(json.length, jsonGzip),
+                cborGzip, saving(json.length, cborGzip));
+    }
+
+    @Benchmark
+    public byte[] json() {
+        return jsonMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] cbor() {
+        return cborMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] jsonGzip() {
+        return gzip(jsonMapper.writeValueAsBytes(books));
+    }
+
+    @Benchmark
+    public byte[] cborGzip() {
+        return gzip(cborMapper.writeValueAsBytes(books));
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static double saving(int base, int bytes) {
+        return 100.0 * (base - bytes) / base;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.library_directo.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga sencilla contra una instancia en ejecución.
+ * Sirve para comparar el modo de hilos virtuales con el de hilos de plataforma:
+ * arrancar la aplicación con VIRTUAL_THREADS_ENABLED=true y luego =false
+ * y ejecutar la misma prueba contra cada una.
+ *
+ * Uso (classpath de test):
+ *   java ... HttpLoadTest http://localhost:8080/api/books 400 30 &lt;token-jwt&gt;
+ *
+ * Argumentos: URL, usuarios concurrentes, duración en segundos y token JWT (opcional).
+ * Muestra peticiones por segundo, errores y latencias p50/p99.
+ *
+ * Procedimiento de la comparación (mismas condiciones en ambos modos):
+ *   1. MySQL 8 local con el catálogo de pruebas cargado y la aplicación con la configuración por
+ *      defecto: Hikari maximum-pool-size=20, connection-timeout=5000 ms, server.tomcat.threads.max=200.
+ *   2. Arrancar con VIRTUAL_THREADS_ENABLED=true, descartar una primera pasada de 30 s de
+ *      calentamiento y medir 3 pasadas de 60 s con 400 usuarios contra /api/books y /api/books/{id}.
+ *   3. Repetir con VIRTUAL_THREADS_ENABLED=false.
+ *   4. Anotar la mediana de las pasadas en la tabla, junto con db.connection.hold y
+ *      hikaricp.connections.pending de /actuator/prometheus durante la prueba.
+ *
+ * Resultados: pendientes. El cambio se hizo en un entorno sin MySQL ni la aplicación desplegada,
+ * y no se han publicado cifras sin medir. Hay que completar la tabla antes de dar por
+ * demostrada la mejora:
+ *
+ *   modo        endpoint            usuarios  req/s  p99 (ms)  errores
+ *   virtuales   /api/books          400       -      -         -
+ *   plataforma  /api/books          400       -      -         -
+ *   virtuales   /api/books/{id}     400       -      -         -
+ *   plataforma  /api/books/{id}     400       -      -         -
+ *
+ * Lo esperable con este pool es que el rendimiento lo limiten las 20 conexiones en ambos modos,
+ * y que la diferencia aparezca en la cola: con hilos de plataforma las peticiones que superan los
+ * 200 hilos esperan en el backlog de Tomcat, y con hilos virtuales esperan conexión como máximo
+ * connection-timeout y fallan (errores) en lugar de acumular latencia.
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args[0]);
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 30);
+        String token = args.length > 3 ? args[3] : null;
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (token != null) {
+            requestBuilder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = requestBuilder.build();
+
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        /// Cada usuario virtual lanza peticiones en bucle hasta el final de la prueba
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies.add(System.nanoTime() - start);
+                    }
+                });
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        double seconds = duration.toMillis() / 1000.0;
+
+        System.out.printf("requests=%d throughput=%.1f req/s errors=%d p50=%.1f ms p99=%.1f ms%n",
+                sorted.size(),
+                sorted.size() / seconds,
+                errors.get(),
+                percentile(sorted, 0.50),
+                percentile(sorted, 0.99));
+    }
+
+    private static double percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index)) / 1_000_000.0;
+    }
+}
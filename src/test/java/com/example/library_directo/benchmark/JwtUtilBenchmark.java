@@ -0,0 +1,80 @@
+package com.example.library_directo.benchmark;
+
+import com.example.library_directo.security.JwtUtil;
+import com.example.library_directo.security.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la validación de JWT anterior (tres parseos y verificaciones de firma
+ * con la clave en texto) con la verificación en una sola pasada y con la caché.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    /// Clave de prueba codificada en Base64 (mínimo 256 bits para HS256)
+    static final String SECRET = "bGlicmFyeS1kaXJlY3RvLWJlbmNobWFyay1zZWNyZXQta2V5LTAwMDE=";
+
+    private static final String EMAIL = "librarian@library.test";
+
+    private JwtUtil jwtUtil;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil(SECRET, 10_000);
+        token = jwtUtil.generateToken(EMAIL);
+    }
+
+    /// Generación y firma de un token nuevo
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(EMAIL);
+    }
+
+    /// Ruta anterior: extractEmail + validateToken + isTokenExpired, cada uno re-parsea el token
+    @Benchmark
+    public boolean legacyThreeParses() {
+        String email = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(email)
+                && !legacyClaims(token).getExpiration().before(new Date());
+    }
+
+    /// Ruta nueva sin caché: una única verificación de firma con la clave precalculada
+    @Benchmark
+    public VerifiedToken singlePass() {
+        return jwtUtil.parse(token);
+    }
+
+    /// Ruta nueva con caché: un token repetido no vuelve a verificar la firma
+    @Benchmark
+    public Optional<VerifiedToken> cachedVerify() {
+        return jwtUtil.verify(token);
+    }
+
+    private Claims legacyClaims(String token) {
+        return Jwts.parser()
+                .setSigningKey(SECRET)
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
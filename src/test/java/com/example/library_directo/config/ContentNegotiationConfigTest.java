@@ -0,0 +1,194 @@
+package com.example.library_directo.config;
+
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba que JSON sigue siendo la representación por defecto y que CBOR solo se sirve
+ * a quien lo pide, tanto en un listado que declara ambos tipos como en un endpoint normal,
+ * y que los endpoints condicionales distinguen ambas representaciones en el ETag y en Vary.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("it")
+@WithMockUser(username = "reader@library.test")
+class ContentNegotiationConfigTest {
+
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = userRepository.save(User.builder()
+                .email("negotiation@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Negotiation")
+                .build());
+        categoryId = category.getId();
+        jdbcTemplate.update("insert into category_stats (category_id, book_count, total_copies, available_copies) "
+                + "values (?, 1, 1, 1)", categoryId);
+        bookId = bookRepository.save(Book.builder()
+                .isbn("9780000000101")
+                .title("Negotiated title")
+                .author("Author")
+                .totalCopies(1)
+                .availableCopies(1)
+                .category(category)
+                .createdBy(librarian)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        jdbcTemplate.update("delete from category_stats");
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void listingDefaultsToJson() throws Exception {
+        mockMvc.perform(get("/api/books"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/books").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void listingServesCborOnlyWhenPreferred() throws Exception {
+        mockMvc.perform(get("/api/books").accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR));
+        mockMvc.perform(get("/api/books").header(HttpHeaders.ACCEPT, "application/json, application/cbor;q=0.5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void listingEtagDependsOnNegotiatedRepresentation() throws Exception {
+        String json = etag(get("/api/categorias/" + categoryId + "/books").accept(MediaType.APPLICATION_JSON));
+        String wildcard = etag(get("/api/categorias/" + categoryId + "/books").accept(MediaType.ALL));
+        String preferJson = etag(get("/api/categorias/" + categoryId + "/books")
+                .header(HttpHeaders.ACCEPT, "application/json, application/cbor;q=0.5"));
+        String cbor = etag(get("/api/categorias/" + categoryId + "/books").accept(CBOR));
+
+        assertEquals(json, wildcard);
+        assertEquals(json, preferJson);
+        assertNotEquals(json, cbor);
+    }
+
+    @Test
+    void conditionalEndpointsTagAndVaryByRepresentation() throws Exception {
+        for (String path : List.of("/api/books/" + bookId, "/api/books/" + bookId + "?fields=title",
+                "/api/categorias", "/api/categorias/" + categoryId, "/api/categorias/summary",
+                "/api/categorias/" + categoryId + "/summary")) {
+            String json = etag(get(path).accept(MediaType.APPLICATION_JSON));
+            String cbor = etag(get(path).accept(CBOR));
+            assertNotEquals(json, cbor, path);
+
+            /// El ETag de JSON no vale para pedir CBOR: se responde con el cuerpo, no 304
+            mockMvc.perform(get(path).accept(CBOR).header(HttpHeaders.IF_NONE_MATCH, json))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentTypeCompatibleWith(CBOR));
+            mockMvc.perform(get(path).accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, json))
+                    .andExpect(status().isNotModified());
+        }
+    }
+
+    @Test
+    void plainEndpointDefaultsToJson() throws Exception {
+        mockMvc.perform(get("/api/categorias/" + categoryId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/categorias/" + categoryId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/categorias/" + categoryId).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void negotiatedTypeFollowsQualityAndSpecificity() {
+        assertEquals(MediaType.APPLICATION_JSON, negotiate(null));
+        assertEquals(MediaType.APPLICATION_JSON, negotiate("*/*"));
+        assertEquals(MediaType.APPLICATION_JSON, negotiate("application/*"));
+        assertEquals(MediaType.APPLICATION_JSON, negotiate("application/json, application/cbor;q=0.5"));
+        assertEquals(MediaType.APPLICATION_JSON, negotiate("application/cbor;q=0.5, */*"));
+        assertEquals(CBOR, negotiate("application/cbor"));
+        assertEquals(CBOR, negotiate("application/cbor, application/json;q=0.9"));
+        assertEquals(CBOR, negotiate("application/cbor, */*;q=0.1"));
+    }
+
+    private String etag(RequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+        return result.getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private static MediaType negotiate(String accept) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (accept != null) {
+            request.addHeader(HttpHeaders.ACCEPT, accept);
+        }
+        return ContentNegotiationConfig.negotiatedType(new ServletWebRequest(request));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.library_directo.controller;
+
+import com.example.library_directo.dto.book.BookDeltaDto;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.BookTombstoneRepository;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.service.BookService;
+import com.example.library_directo.service.CategoryService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba la sincronización incremental (GET /api/books/delta): formato del token,
+ * decisión entre sincronización completa e incremental, lápidas de los borrados,
+ * libros de una categoría renombrada y el flujo gzip.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("it")
+@WithMockUser(username = "kiosk@library.test")
+class BookDeltaTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookTombstoneRepository bookTombstoneRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private Long bookId;
+    private Long otherBookId;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = userRepository.save(User.builder()
+                .email("delta@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        category = categoryRepository.save(Category.builder()
+                .name("Delta")
+                .build());
+        Category other = categoryRepository.save(Category.builder()
+                .name("Delta other")
+                .build());
+        bookId = saveBook("9780000000301", category, librarian);
+        otherBookId = saveBook("9780000000302", other, librarian);
+        /// Ambos libros se modificaron hace una hora
+        jdbcTemplate.update("update books set updated_at = ?", Timestamp.valueOf(LocalDateTime.now().minusHours(1)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from catalog_changes");
+        jdbcTemplate.update("delete from category_stats");
+        bookTombstoneRepository.deleteAll();
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void withoutTokenSendsFullCatalog() throws Exception {
+        MockHttpServletResponse response = delta(get("/api/books/delta"));
+
+        assertEquals("true", response.getHeader("X-Delta-Full"));
+        assertEquals(List.of(bookId, otherBookId), ids(lines(response)));
+    }
+
+    @Test
+    void tokenOlderThanTombstoneRetentionSendsFullCatalog() throws Exception {
+        String expired = Long.toString(epochMillis(LocalDateTime.now().minusDays(31)));
+
+        MockHttpServletResponse response = delta(get("/api/books/delta").param("since", expired));
+
+        assertEquals("true", response.getHeader("X-Delta-Full"));
+        assertEquals(2, lines(response).size());
+    }
+
+    @Test
+    void recentTokenSendsOnlyLaterChanges() throws Exception {
+        String token = Long.toString(epochMillis(LocalDateTime.now().minusMinutes(30)));
+        assertTrue(lines(delta(get("/api/books/delta").param("since", token))).isEmpty());
+
+        jdbcTemplate.update("update books set updated_at = ? where id = ?", Timestamp.valueOf(LocalDateTime.now()), bookId);
+        MockHttpServletResponse response = delta(get("/api/books/delta").param("since", token));
+
+        assertEquals("false", response.getHeader("X-Delta-Full"));
+        List<BookDeltaDto> lines = lines(response);
+        assertEquals(List.of(bookId), ids(lines));
+        assertEquals(BookDeltaDto.Type.UPSERT, lines.get(0).getType());
+    }
+
+    @Test
+    void nextTokenIsEpochMillisBeforeTheRead() throws Exception {
+        long before = epochMillis(LocalDateTime.now());
+
+        long token = Long.parseLong(delta(get("/api/books/delta")).getHeader("X-Delta-Token"));
+
+        /// El token lleva restado el margen de solape (app.delta.overlap=10s)
+        assertTrue(token <= before - 9_000, "token " + token + " antes de " + before);
+    }
+
+    @Test
+    void acceptsEpochMillisAndIsoTokens() throws Exception {
+        LocalDateTime since = LocalDateTime.now().minusMinutes(90);
+        OffsetDateTime offsetSince = since.atZone(ZoneId.systemDefault()).toOffsetDateTime();
+        List<String> tokens = List.of(
+                Long.toString(epochMillis(since)),
+                since.toString(),
+                offsetSince.withOffsetSameInstant(ZoneOffset.UTC).toString(),
+                offsetSince.withOffsetSameInstant(ZoneOffset.ofHours(5)).toString());
+
+        for (String token : tokens) {
+            MockHttpServletResponse response = delta(get("/api/books/delta").param("since", token));
+            assertEquals("false", response.getHeader("X-Delta-Full"), token);
+            assertEquals(2, lines(response).size(), token);
+        }
+    }
+
+    @Test
+    void rejectsInvalidToken() {
+        ServletException error = assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/api/books/delta").param("since", "yesterday")));
+        assertEquals("Token de sincronización no válido", error.getRootCause().getMessage());
+    }
+
+    @Test
+    void deleteWritesTombstoneSentAsDeleteLine() throws Exception {
+        String token = Long.toString(epochMillis(LocalDateTime.now().minusMinutes(30)));
+
+        bookService.deleteBook(otherBookId);
+
+        assertTrue(bookTombstoneRepository.findAll().stream().anyMatch(t -> t.getBookId().equals(otherBookId)));
+        List<BookDeltaDto> lines = lines(delta(get("/api/books/delta").param("since", token)));
+        assertEquals(1, lines.size());
+        assertEquals(BookDeltaDto.Type.DELETE, lines.get(0).getType());
+        assertEquals(otherBookId, lines.get(0).getId());
+        assertNull(lines.get(0).getBook());
+    }
+
+    @Test
+    void renamingCategorySendsItsBooks() throws Exception {
+        String token = Long.toString(epochMillis(LocalDateTime.now().minusMinutes(30)));
+
+        categoryService.updateCategory(category.getId(), new CreateCategoryRequest("Delta renamed", null));
+
+        List<BookDeltaDto> lines = lines(delta(get("/api/books/delta").param("since", token)));
+        assertEquals(List.of(bookId), ids(lines));
+        assertEquals("Delta renamed", lines.get(0).getBook().getCategory().getName());
+    }
+
+    @Test
+    void gzipBodyIsCompleteNdjson() throws Exception {
+        MockHttpServletResponse plain = delta(get("/api/books/delta"));
+        MockHttpServletResponse gzip = delta(get("/api/books/delta").header(HttpHeaders.ACCEPT_ENCODING, "gzip, br"));
+
+        assertNull(plain.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzip.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzip.getHeaders(HttpHeaders.VARY).contains(HttpHeaders.ACCEPT_ENCODING));
+
+        /// Un único miembro gzip completo (con su trailer) que contiene las mismas líneas
+        byte[] decompressed;
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getContentAsByteArray()))) {
+            decompressed = in.readAllBytes();
+        }
+        assertEquals(plain.getContentAsString(StandardCharsets.UTF_8), new String(decompressed, StandardCharsets.UTF_8));
+        assertTrue(new String(decompressed, StandardCharsets.UTF_8).endsWith("\n"));
+    }
+
+    private Long saveBook(String isbn, Category bookCategory, User creator) {
+        return bookRepository.save(Book.builder()
+                .isbn(isbn)
+                .title("Delta " + isbn)
+                .author("Author")
+                .totalCopies(1)
+                .availableCopies(1)
+                .category(bookCategory)
+                .createdBy(creator)
+                .build()).getId();
+    }
+
+    /// El cuerpo se escribe en streaming: hay que despachar la parte asíncrona
+    private MockHttpServletResponse delta(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+
+    private List<BookDeltaDto> lines(MockHttpServletResponse response) throws IOException {
+        byte[] body = response.getContentAsByteArray();
+        if ("gzip".equals(response.getHeader(HttpHeaders.CONTENT_ENCODING))) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        List<BookDeltaDto> lines = new ArrayList<>();
+        for (String line : new String(body, StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readValue(line, BookDeltaDto.class));
+            }
+        }
+        return lines;
+    }
+
+    private static List<Long> ids(List<BookDeltaDto> lines) {
+        return lines.stream().map(BookDeltaDto::getId).toList();
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.library_directo.controller;
+
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.category.CategoryDto;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el rendimiento del mapeo entidad → DTO de BookController y CategoryController.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private BookController bookController;
+    private CategoryController categoryController;
+    private Book book;
+    private Category category;
+
+    @Setup
+    public void setUp() {
+        bookController = new BookController(null, null, null, null, null);
+        categoryController = new CategoryController(null, null, null, null);
+
+        category = Category.builder()
+                .id(1L)
+                .name("Ficción")
+                .description("Novelas y relatos")
+                .build();
+
+        User librarian = User.builder()
+                .id(1L)
+                .email("librarian@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build();
+
+        book = Book.builder()
+                .id(1L)
+                .isbn("9788437604947")
+                .title("Cien años de soledad")
+                .author("Gabriel García Márquez")
+                .publisher("Cátedra")
+                .publicationYear(1967)
+                .description("Historia de la familia Buendía en Macondo")
+                .coverImage("https://covers.example.com/9788437604947.jpg")
+                .totalCopies(5)
+                .availableCopies(3)
+                .category(category)
+                .createdBy(librarian)
+                .build();
+    }
+
+    @Benchmark
+    public BookDto bookToDto() {
+        return bookController.convertToDto(book);
+    }
+
+    @Benchmark
+    public CategoryDto categoryToDto() {
+        return categoryController.convertToDto(category);
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.library_directo.monitoring;
+
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.service.CategoryStatsService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba en modo estricto que los endpoints con presupuesto de SQL se mantienen dentro de él,
+ * que una petición que lo supera falla, y que las sentencias de los cuerpos en streaming
+ * se cuentan aunque se ejecuten en otro hilo.
+ */
+@SpringBootTest(properties = {
+        "app.sql-budget.strict=true",
+        "app.sql-budget.debug-headers=true",
+        "app.sql-budget.endpoints.[GET\\ /api/categorias]=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("it")
+@WithMockUser(username = "budget@library.test")
+class SqlBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SqlBudgetProperties budget;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CategoryStatsService categoryStatsService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long categoryId;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = userRepository.save(User.builder()
+                .email("budget@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Budget")
+                .build());
+        categoryId = category.getId();
+        categoryStatsService.createFor(categoryId);
+        for (int i = 0; i < 5; i++) {
+            bookId = bookRepository.save(Book.builder()
+                    .isbn("978000000050" + i)
+                    .title("Budget " + i)
+                    .author("Author")
+                    .totalCopies(1)
+                    .availableCopies(1)
+                    .category(category)
+                    .createdBy(librarian)
+                    .build()).getId();
+        }
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from catalog_changes");
+        jdbcTemplate.update("delete from category_stats");
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void budgetedEndpointsStayWithinBudget() throws Exception {
+        Map<String, String> requests = Map.of(
+                "GET /api/books", "/api/books",
+                "GET /api/books/{id}", "/api/books/" + bookId,
+                "GET /api/categorias/{id}/books", "/api/categorias/" + categoryId + "/books",
+                "GET /api/categorias/summary", "/api/categorias/summary",
+                "GET /api/categorias/{id}/summary", "/api/categorias/" + categoryId + "/summary",
+                "GET /api/changes", "/api/changes");
+
+        for (Map.Entry<String, String> entry : requests.entrySet()) {
+            MockHttpServletResponse response = mockMvc.perform(get(entry.getValue()))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse();
+
+            String count = response.getHeader(SqlBudgetResponseAdvice.SQL_COUNT_HEADER);
+            assertNotNull(count, entry.getKey());
+            assertTrue(Integer.parseInt(count) <= budget.maxStatementsFor(entry.getKey()),
+                    entry.getKey() + ": " + count + " sentencias");
+        }
+    }
+
+    @Test
+    void strictModeFailsRequestOverBudget() {
+        ServletException error = assertThrows(ServletException.class,
+                () -> mockMvc.perform(get("/api/categorias")));
+
+        assertInstanceOf(IllegalStateException.class, error.getRootCause());
+        assertTrue(error.getRootCause().getMessage().startsWith("Presupuesto de SQL superado en GET /api/categorias"));
+    }
+
+    @Test
+    void streamingBodiesCountStatementsOfTheirThread() throws Exception {
+        for (String uri : new String[]{"/api/books/stream", "/api/books/delta"}) {
+            MvcResult started = mockMvc.perform(get(uri))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk());
+
+            /// Se publica una sola vez, en el despacho asíncrono, con la consulta del cuerpo incluida
+            DistributionSummary statements = meterRegistry.find("sql.statements.per.request")
+                    .tags("uri", uri, "method", "GET")
+                    .summary();
+            assertNotNull(statements, uri);
+            assertEquals(1, statements.count(), uri);
+            assertTrue(statements.totalAmount() >= 1, uri + ": " + statements.totalAmount() + " sentencias");
+        }
+    }
+}
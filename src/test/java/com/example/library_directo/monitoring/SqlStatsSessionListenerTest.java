@@ -0,0 +1,106 @@
+package com.example.library_directo.monitoring;
+
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Comprueba que el listener de Hibernate cuenta las sentencias de la petición en curso,
+ * incluidas las cargas perezosas que provocan un N+1.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session.events.auto=com.example.library_directo.monitoring.SqlStatsSessionListener"
+})
+class SqlStatsSessionListenerTest {
+
+    private static final int CATEGORIES = 3;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = User.builder()
+                .email("budget@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build();
+        entityManager.persist(librarian);
+
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category category = Category.builder()
+                    .name("Category " + c)
+                    .build();
+            entityManager.persist(category);
+
+            for (int b = 0; b < 5; b++) {
+                entityManager.persist(Book.builder()
+                        .isbn(String.format("979%02d%08d", c, b))
+                        .title("Title " + c + "-" + b)
+                        .author("Author")
+                        .totalCopies(1)
+                        .availableCopies(1)
+                        .category(category)
+                        .createdBy(librarian)
+                        .build());
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestSqlStats.clear();
+    }
+
+    @Test
+    void countsStatementsOfCurrentRequest() {
+        RequestSqlStats stats = RequestSqlStats.start();
+
+        bookRepository.findDtosAfter(0L, Limit.of(50));
+
+        assertEquals(1, stats.statements());
+    }
+
+    @Test
+    void countsLazyLoadsAsSeparateStatements() {
+        RequestSqlStats stats = RequestSqlStats.start();
+
+        List<Book> books = bookRepository.findAll();
+        books.forEach(book -> book.getCategory().getName());
+
+        /// Una consulta para los libros y otra por cada categoría distinta
+        assertEquals(1 + CATEGORIES, stats.statements());
+    }
+
+    @Test
+    void ignoresStatementsOutsideRequests() {
+        bookRepository.findDtosAfter(0L, Limit.of(50));
+
+        assertNull(RequestSqlStats.current());
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que el préstamo de copias nunca sobrepasa las copias disponibles
+ * cuando muchos hilos piden a la vez el mismo libro.
+ * Sin transacción de test: cada UPDATE se confirma y es visible para los demás hilos.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookCheckoutConcurrencyTest {
+
+    private static final int COPIES = 10;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 10;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = userRepository.save(User.builder()
+                .email("checkout@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+
+        Category category = categoryRepository.save(Category.builder()
+                .name("Hot titles")
+                .build());
+
+        bookId = bookRepository.save(Book.builder()
+                .isbn("9780000000001")
+                .title("Hot title")
+                .author("Author")
+                .totalCopies(COPIES)
+                .availableCopies(COPIES)
+                .category(category)
+                .createdBy(librarian)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        int successes = runConcurrently(() -> bookRepository.decrementAvailableCopies(bookId, LocalDateTime.now()));
+
+        assertEquals(COPIES, successes);
+        assertEquals(0, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+    }
+
+    @Test
+    void concurrentReturnsNeverExceedTotalCopies() throws Exception {
+        bookRepository.decrementAvailableCopies(bookId, LocalDateTime.now());
+        bookRepository.decrementAvailableCopies(bookId, LocalDateTime.now());
+
+        int successes = runConcurrently(() -> bookRepository.incrementAvailableCopies(bookId, LocalDateTime.now()));
+
+        assertEquals(2, successes);
+        assertEquals(COPIES, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+    }
+
+    /// Lanza todos los hilos a la vez contra el mismo libro y cuenta las filas actualizadas
+    private int runConcurrently(Callable<Integer> operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int updated = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        updated += operation.call();
+                    }
+                    return updated;
+                }));
+            }
+            start.countDown();
+
+            int total = 0;
+            for (Future<Integer> future : futures) {
+                total += future.get();
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
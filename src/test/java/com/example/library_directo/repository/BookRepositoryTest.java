@@ -0,0 +1,153 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookField;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.library_directo.repository.BookRepositoryTest$SqlRecorder"
+})
+class BookRepositoryTest {
+
+    /// SQL generado por Hibernate, para comprobar qué columnas se seleccionan
+    public static class SqlRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql.toLowerCase());
+            return sql;
+        }
+    }
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = User.builder()
+                .email("librarian@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build();
+        entityManager.persist(librarian);
+
+        for (int c = 0; c < 3; c++) {
+            Category category = Category.builder()
+                    .name("Category " + c)
+                    .build();
+            entityManager.persist(category);
+
+            for (int b = 0; b < 10; b++) {
+                entityManager.persist(Book.builder()
+                        .isbn(String.format("978%02d%08d", c, b))
+                        .title("Title " + c + "-" + b)
+                        .author("Author " + b)
+                        .totalCopies(3)
+                        .availableCopies(3)
+                        .category(category)
+                        .createdBy(librarian)
+                        .build());
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        statistics.clear();
+        SqlRecorder.STATEMENTS.clear();
+    }
+
+    @Test
+    void bookPageIsLoadedWithSingleStatement() {
+        List<BookDto> page = bookRepository.findDtosAfter(0L, Limit.of(50));
+
+        assertEquals(30, page.size());
+        assertEquals("Librarian", page.get(0).getCreatedByName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void bookDetailIsLoadedWithSingleStatement() {
+        Long id = bookRepository.findDtosAfter(0L, Limit.of(1)).get(0).getId();
+        statistics.clear();
+
+        BookDto book = bookRepository.findDtoById(id).orElseThrow();
+
+        assertEquals("Category 0", book.getCategory().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void sparseFieldsSelectOnlyRequestedColumns() {
+        List<Map<String, Object>> page = bookRepository.findFieldsAfter(0L, 50, EnumSet.of(BookField.TITLE));
+
+        assertEquals(30, page.size());
+        /// El ID se devuelve aunque no se pida, y antes que el resto de campos
+        assertEquals(List.of("id", "title"), List.copyOf(page.get(0).keySet()));
+        assertEquals("Title 0-0", page.get(0).get("title"));
+
+        assertEquals(1, SqlRecorder.STATEMENTS.size());
+        String sql = SqlRecorder.STATEMENTS.get(0);
+        assertTrue(sql.contains("title"), sql);
+        for (String column : List.of("isbn", "author", "description", "total_copies", "available_copies", "join")) {
+            assertFalse(sql.contains(column), column + " en " + sql);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sparseCategoryIsNestedObject() {
+        Long id = bookRepository.findDtosAfter(0L, Limit.of(1)).get(0).getId();
+        SqlRecorder.STATEMENTS.clear();
+
+        Map<String, Object> book = bookRepository.findFieldsById(id, EnumSet.of(BookField.CATEGORY)).orElseThrow();
+
+        assertEquals(List.of("id", "category"), List.copyOf(book.keySet()));
+        Map<String, Object> category = (Map<String, Object>) book.get("category");
+        assertEquals(List.of("id", "name", "description"), List.copyOf(category.keySet()));
+        assertEquals("Category 0", category.get("name"));
+
+        /// Solo se une la tabla de categorías: el creador no se ha pedido
+        String sql = SqlRecorder.STATEMENTS.get(0);
+        assertTrue(sql.contains("join categories"), sql);
+        assertFalse(sql.contains("users"), sql);
+    }
+}
@@ -0,0 +1,380 @@
+package com.example.library_directo.repository;
+
+import com.example.library_directo.dto.book.BookDto;
+import com.example.library_directo.dto.book.BookField;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.BookTombstone;
+import com.example.library_directo.entity.CatalogChange;
+import com.example.library_directo.entity.CatalogEntityType;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.CategoryStats;
+import com.example.library_directo.entity.ChangeOperation;
+import com.example.library_directo.entity.Loan;
+import com.example.library_directo.entity.LoanStatus;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ejecuta EXPLAIN sobre cada consulta de los repositorios y falla si alguna recorre una tabla entera.
+ * El esquema se crea con las migraciones de Flyway sobre H2 en modo MySQL, así que
+ * el test también comprueba que las migraciones definen los índices que usan las consultas.
+ * Las sentencias se capturan a nivel JDBC (SQL y parámetros) para repetirlas con EXPLAIN.
+ */
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:query-plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryQueryPlanTest {
+
+    private static final int CATEGORIES = 20;
+    private static final int USERS = 10;
+    private static final int BOOKS = 2000;
+    private static final int LOANS = 500;
+    private static final int CHANGES = 1000;
+
+    /// Sentencias ejecutadas desde el último clear()
+    private static final List<ExecutedStatement> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private CategoryStatsRepository categoryStatsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private CatalogChangeRepository catalogChangeRepository;
+
+    @Autowired
+    private BookTombstoneRepository bookTombstoneRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private User user;
+    private Book book;
+    private Loan loan;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Carga los datos una sola vez y los confirma: ANALYZE hace commit implícito en H2,
+     * así que no pueden vivir en la transacción de cada test (que se deshace al terminar).
+     */
+    @BeforeAll
+    void seed() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            insertFixture();
+
+            /// Estadísticas actualizadas para que el optimizador de H2 elija los planes reales
+            entityManager.createNativeQuery("ANALYZE").executeUpdate();
+        });
+    }
+
+    @AfterAll
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (String table : List.of("loans", "catalog_changes", "book_tombstones", "category_stats",
+                    "books", "categories", "users")) {
+                entityManager.createNativeQuery("delete from " + table).executeUpdate();
+            }
+        });
+    }
+
+    @BeforeEach
+    void clearStatements() {
+        STATEMENTS.clear();
+    }
+
+    private void insertFixture() {
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < USERS; u++) {
+            User created = User.builder()
+                    .email("user" + u + "@library.test")
+                    .name("User " + u)
+                    .role(Role.LIBRARIAN)
+                    .provider(Provider.LOCAL)
+                    .build();
+            entityManager.persist(created);
+            users.add(created);
+        }
+
+        List<Category> categories = new ArrayList<>();
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category created = Category.builder()
+                    .name("Category " + c)
+                    .build();
+            entityManager.persist(created);
+            entityManager.persist(new CategoryStats(created.getId(), 0L, 0L, 0L));
+            categories.add(created);
+        }
+
+        List<Book> books = new ArrayList<>();
+        for (int b = 0; b < BOOKS; b++) {
+            Book created = Book.builder()
+                    .isbn(String.format("978%010d", b))
+                    .title("Title " + b)
+                    .author("Author " + (b % 300))
+                    .totalCopies(3)
+                    .availableCopies(3)
+                    .category(categories.get(b % CATEGORIES))
+                    .createdBy(users.get(b % USERS))
+                    .build();
+            entityManager.persist(created);
+            books.add(created);
+        }
+
+        LoanStatus[] statuses = LoanStatus.values();
+        for (int l = 0; l < LOANS; l++) {
+            Loan created = Loan.builder()
+                    .book(books.get(l))
+                    .user(users.get(l % USERS))
+                    .dueDate(LocalDateTime.now().plusDays(l % 30 - 15))
+                    .renewals(0)
+                    .status(statuses[l % statuses.length])
+                    .build();
+            entityManager.persist(created);
+            if (loan == null && created.getStatus() == LoanStatus.ACTIVE) {
+                loan = created;
+            }
+        }
+
+        for (long t = 1; t <= CHANGES; t++) {
+            entityManager.persist(new BookTombstone(BOOKS + t, LocalDateTime.now().minusDays(CHANGES - t)));
+        }
+
+        ChangeOperation[] operations = ChangeOperation.values();
+        for (int c = 0; c < CHANGES; c++) {
+            entityManager.persist(CatalogChange.builder()
+                    .entityType(CatalogEntityType.BOOK)
+                    .entityId(books.get(c % (BOOKS / 4)).getId())
+                    .operation(operations[c % operations.length])
+                    .changedAt(LocalDateTime.now().minusDays(CHANGES - c))
+                    .build());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        user = users.getFirst();
+        book = books.get(BOOKS / 2);
+    }
+
+    @Test
+    void bookQueriesUseIndexes() throws Exception {
+        bookRepository.findByIsbn(book.getIsbn());
+        bookRepository.existsByIsbn(book.getIsbn());
+        bookRepository.findByTitle(book.getTitle());
+        bookRepository.findByAuthor(book.getAuthor());
+        bookRepository.findIsbnsByIsbnIn(Set.of(book.getIsbn(), "9999999999999"));
+        bookRepository.findDtosAfter(book.getId(), Limit.of(50));
+        bookRepository.findDtosByCategoryAfter(book.getCategory().getId(), book.getId(), Limit.of(50));
+        bookRepository.findDtoById(book.getId());
+        bookRepository.findWithCreatorById(book.getId());
+        bookRepository.findFieldsAfter(book.getId(), 50, EnumSet.of(BookField.ID, BookField.TITLE, BookField.AUTHOR));
+        bookRepository.findFieldsById(book.getId(), EnumSet.allOf(BookField.class));
+        bookRepository.findLastModifiedById(book.getId());
+        bookRepository.findDtosByIdIn(List.of(book.getId(), book.getId() + 1));
+        bookRepository.findDtosByIsbnIn(List.of(book.getIsbn(), "9999999999999"));
+        bookRepository.decrementAvailableCopies(book.getId(), LocalDateTime.now());
+        bookRepository.incrementAvailableCopies(book.getId(), LocalDateTime.now());
+        /// streamAllDtos no se comprueba: recorre el catálogo completo a propósito
+        try (Stream<BookDto> changed = bookRepository.streamDtosUpdatedAfter(LocalDateTime.now().minusMinutes(1))) {
+            changed.forEach(dto -> { });
+        }
+
+        assertNoFullScans();
+    }
+
+    @Test
+    void loanQueriesUseIndexes() throws Exception {
+        loanRepository.findOpenLoansByUserId(user.getId());
+        loanRepository.findOverdueAfter(0L, Limit.of(50));
+        loanRepository.findBookIdById(loan.getId());
+        loanRepository.existsByBookId(loan.getBook().getId());
+        loanRepository.renew(loan.getId(), user.getId(), 14, 2);
+        loanRepository.markReturned(loan.getId(), LocalDateTime.now());
+        loanRepository.markOverdue(LocalDateTime.now());
+
+        assertNoFullScans();
+    }
+
+    @Test
+    void userAndCategoryQueriesUseIndexes() throws Exception {
+        userRepository.findByEmail(user.getEmail());
+        userRepository.existsByEmail(user.getEmail());
+        categoryRepository.findByName("Category 1");
+        categoryRepository.existsByName("Category 1");
+        categoryStatsRepository.findSummaryByCategoryId(book.getCategory().getId());
+        categoryStatsRepository.applyDelta(book.getCategory().getId(), 1, 3, 3);
+        categoryStatsRepository.applyAvailableDeltaByBookId(book.getId(), -1);
+        /// findSummaries no se comprueba: devuelve todas las categorías a propósito
+
+        assertNoFullScans();
+    }
+
+    @Test
+    void changeFeedAndDeltaQueriesUseIndexes() throws Exception {
+        catalogChangeRepository.findDtosAfter(CHANGES / 2L, Limit.of(100));
+        catalogChangeRepository.findSupersededIds(LocalDateTime.now().minusDays(CHANGES / 2), Limit.of(1000));
+        /// streamDeletedAfter no se comprueba por el mismo motivo que streamDtosUpdatedAfter
+        bookTombstoneRepository.deleteExpired(LocalDateTime.now().minusDays(CHANGES / 2));
+
+        assertNoFullScans();
+    }
+
+    /// Repite cada sentencia capturada con EXPLAIN y reúne las que hacen un tableScan
+    private void assertNoFullScans() throws Exception {
+        List<ExecutedStatement> executed = List.copyOf(STATEMENTS);
+        assertTrue(!executed.isEmpty(), "No se ha capturado ninguna sentencia");
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        List<String> fullScans = new ArrayList<>();
+        for (ExecutedStatement statement : executed) {
+            if (statement.sql().stripLeading().toLowerCase(Locale.ROOT).startsWith("insert")) {
+                continue;
+            }
+            String plan = explain(connection, statement);
+            if (plan.contains("tableScan")) {
+                fullScans.add(statement.sql() + "\n  -> " + plan);
+            }
+        }
+
+        assertTrue(fullScans.isEmpty(), () -> "Consultas con full scan:\n" + String.join("\n", fullScans));
+    }
+
+    private String explain(Connection connection, ExecutedStatement statement) throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (Binding binding : statement.bindings()) {
+                binding.setter().invoke(explain, binding.args());
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        }
+    }
+
+    private record ExecutedStatement(String sql, List<Binding> bindings) {
+    }
+
+    private record Binding(Method setter, Object[] args) {
+    }
+
+    /**
+     * Envuelve el DataSource para registrar el SQL y los parámetros de cada PreparedStatement ejecutado.
+     */
+    @TestConfiguration
+    static class StatementRecordingConfig {
+
+        @Bean
+        static BeanPostProcessor statementRecorder() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource target) {
+                        return proxy(DataSource.class, target, (method, args, result) ->
+                                result instanceof Connection connection
+                                        ? proxy(Connection.class, connection, recordingConnection())
+                                        : result);
+                    }
+                    return bean;
+                }
+            };
+        }
+
+        private static Invocation recordingConnection() {
+            return (method, args, result) -> {
+                if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                    return proxy(PreparedStatement.class, statement, recordingStatement((String) args[0]));
+                }
+                return result;
+            };
+        }
+
+        private static Invocation recordingStatement(String sql) {
+            Map<Integer, Binding> bindings = new TreeMap<>();
+            return (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                    bindings.put(index, new Binding(method, args.clone()));
+                } else if (name.equals("clearParameters")) {
+                    bindings.clear();
+                } else if ((args == null || args.length == 0) && (name.startsWith("execute") || name.equals("addBatch"))) {
+                    STATEMENTS.add(new ExecutedStatement(sql, List.copyOf(bindings.values())));
+                }
+                return result;
+            };
+        }
+
+        /// Proxy que delega en el objeto real y deja a la Invocation transformar el resultado
+        private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, method, args) -> {
+                try {
+                    return invocation.after(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            }));
+        }
+
+        @FunctionalInterface
+        private interface Invocation {
+            Object after(Method method, Object[] args, Object result) throws Exception;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.library_directo.search;
+
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import com.example.library_directo.service.BookService;
+import com.example.library_directo.service.CategoryService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba la búsqueda aproximada, que el índice solo cambia al confirmarse la transacción
+ * y que un aviso que llega tarde no deja en el índice una versión anterior del libro.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class BookSearchIndexTest {
+
+    @Autowired
+    private BookSearchIndex index;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User librarian;
+    private Long categoryId;
+    private Long quijoteId;
+    private Long regentaId;
+
+    @BeforeEach
+    void setUp() {
+        librarian = userRepository.save(User.builder()
+                .email("search@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        categoryId = categoryService.createCategory(new CreateCategoryRequest("Search", null)).getId();
+        quijoteId = bookService.createBook(
+                book("9780000000801", "Don Quijote de la Mancha", "Miguel de Cervantes"), librarian).getId();
+        regentaId = bookService.createBook(
+                book("9780000000802", "La Regenta", "Leopoldo Alas"), librarian).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("catalog_changes", "book_tombstones", "category_stats", "books", "categories", "users")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+        index.rebuild();
+    }
+
+    @Test
+    void transpositionCountsAsOneEdit() {
+        assertEquals(List.of(quijoteId), index.search("quijtoe", 10));
+        assertEquals(List.of(regentaId), index.search("regneta", 10));
+    }
+
+    @Test
+    void isWithinOneEditCoversAllEditKinds() {
+        assertTrue(BookSearchIndex.isWithinOneEdit("quijote", "quijote"));
+        assertTrue(BookSearchIndex.isWithinOneEdit("quijtoe", "quijote"));
+        assertTrue(BookSearchIndex.isWithinOneEdit("quijoet", "quijote"));
+        assertTrue(BookSearchIndex.isWithinOneEdit("quijote", "quixote"));
+        assertTrue(BookSearchIndex.isWithinOneEdit("quijote", "quijotes"));
+        assertTrue(BookSearchIndex.isWithinOneEdit("quiote", "quijote"));
+
+        assertFalse(BookSearchIndex.isWithinOneEdit("qiujtoe", "quijote"));
+        assertFalse(BookSearchIndex.isWithinOneEdit("quijeto", "quijote"));
+        assertFalse(BookSearchIndex.isWithinOneEdit("quijote", "quijotesa"));
+        assertFalse(BookSearchIndex.isWithinOneEdit("quxjotx", "quijote"));
+    }
+
+    @Test
+    void changesApplyOnlyAfterCommit() {
+        Long fortunataId = transactionTemplate.execute(status -> {
+            Long id = bookService.createBook(
+                    book("9780000000803", "Fortunata y Jacinta", "Benito Pérez Galdós"), librarian).getId();
+            bookService.deleteBook(quijoteId);
+
+            assertTrue(index.search("fortunata", 10).isEmpty());
+            assertEquals(List.of(quijoteId), index.search("quijote", 10));
+            return id;
+        });
+
+        assertEquals(List.of(fortunataId), index.search("fortunata", 10));
+        assertTrue(index.search("quijote", 10).isEmpty());
+    }
+
+    @Test
+    void rolledBackChangesAreNeverApplied() {
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.createBook(
+                    book("9780000000803", "Fortunata y Jacinta", "Benito Pérez Galdós"), librarian);
+            bookService.deleteBook(quijoteId);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(index.search("fortunata", 10).isEmpty());
+        assertEquals(List.of(quijoteId), index.search("quijote", 10));
+    }
+
+    @Test
+    void lateNoticeOfEarlierEditKeepsLaterEdit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> earlier = editWithDelayedNotice(quijoteId, "Fortunata y Jacinta", release);
+
+        /// La segunda edición se confirma y se indexa antes de que llegue el aviso de la primera
+        bookService.updateBook(quijoteId, book("9780000000801", "Tristana", "Benito Pérez Galdós"));
+        release.countDown();
+        earlier.get(10, TimeUnit.SECONDS);
+
+        assertEquals(List.of(quijoteId), index.search("tristana", 10));
+        assertTrue(index.search("fortunata", 10).isEmpty());
+    }
+
+    @Test
+    void lateNoticeOfEditDoesNotResurrectDeletedBook() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> earlier = editWithDelayedNotice(regentaId, "Fortunata y Jacinta", release);
+
+        bookService.deleteBook(regentaId);
+        release.countDown();
+        earlier.get(10, TimeUnit.SECONDS);
+
+        assertTrue(index.search("fortunata", 10).isEmpty());
+        assertTrue(index.search("regenta", 10).isEmpty());
+    }
+
+    /// Edita el título en otro hilo y espera a que se confirme; el aviso al índice queda
+    /// retenido detrás de una sincronización registrada antes hasta que se abre el cerrojo
+    private CompletableFuture<Void> editWithDelayedNotice(Long id, String title, CountDownLatch release)
+            throws Exception {
+        String isbn = jdbcTemplate.queryForObject("select isbn from books where id = ?", String.class, id);
+        CountDownLatch committed = new CountDownLatch(1);
+        CompletableFuture<Void> edit = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            bookService.updateBook(id, book(isbn, title, "Author"));
+        }));
+        assertTrue(committed.await(10, TimeUnit.SECONDS));
+        return edit;
+    }
+
+    private CreateBookRequest book(String isbn, String title, String author) {
+        return new CreateBookRequest(isbn, title, author, null, null, null, null, 1, categoryId);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.library_directo.security;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que los tokens firmados con la clave correcta pero sin expiración se rechazan
+ * como inválidos, en lugar de fallar con un NullPointerException.
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "dGVzdC1zZWNyZXQta2V5LWZvci1pbnRlZ3JhdGlvbi10ZXN0cy0wMTIzNDU2Nzg5";
+
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 100);
+
+    @Test
+    void acceptsGeneratedToken() {
+        String token = jwtUtil.generateToken("reader@library.test");
+
+        assertEquals("reader@library.test", jwtUtil.extractEmail(token));
+        assertTrue(jwtUtil.validateToken(token, "reader@library.test"));
+    }
+
+    @Test
+    void rejectsSignedTokenWithoutExpiration() {
+        String token = Jwts.builder()
+                .setSubject("reader@library.test")
+                .setIssuedAt(new Date())
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> jwtUtil.parse(token));
+        assertTrue(jwtUtil.verify(token).isEmpty());
+        assertFalse(jwtUtil.validateToken(token, "reader@library.test"));
+        assertThrows(JwtException.class, () -> jwtUtil.extractEmail(token));
+    }
+}
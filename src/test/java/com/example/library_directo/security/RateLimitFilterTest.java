@@ -0,0 +1,128 @@
+package com.example.library_directo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el limitador en la cadena de filtros: la primera política que coincide gana,
+ * el rechazo es un 429 con Retry-After, y los buckets van por usuario o, sin autenticar, por IP.
+ * Cada test usa sus propias IPs y usuarios: los buckets se comparten en el contexto.
+ */
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.policies[0].name=summary",
+        "app.rate-limit.policies[0].path=/api/categorias/summary",
+        "app.rate-limit.policies[0].method=GET",
+        "app.rate-limit.policies[0].capacity=2",
+        "app.rate-limit.policies[0].period=1m",
+        "app.rate-limit.policies[1].name=api",
+        "app.rate-limit.policies[1].path=/api/**",
+        "app.rate-limit.policies[1].capacity=4",
+        "app.rate-limit.policies[1].period=1m"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("it")
+class RateLimitFilterTest {
+
+    private static final String SUMMARY = "/api/categorias/summary";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void firstMatchingPolicyApplies() throws Exception {
+        RequestPostProcessor client = user("first-match@library.test");
+
+        assertNotLimited(get(SUMMARY).with(client));
+        assertNotLimited(get(SUMMARY).with(client));
+        assertLimited(get(SUMMARY).with(client));
+
+        /// Otra ruta, u otro método en la misma ruta, cae en la política general con su propio bucket
+        assertNotLimited(get("/api/categorias").with(client));
+        assertNotLimited(post(SUMMARY).with(client));
+    }
+
+    @Test
+    void rejectionIsTooManyRequestsWithRetryAfter() throws Exception {
+        RequestPostProcessor client = user("retry-after@library.test");
+        double rejectedBefore = rejected("summary");
+        mockMvc.perform(get(SUMMARY).with(client));
+        mockMvc.perform(get(SUMMARY).with(client));
+
+        String retryAfter = mockMvc.perform(get(SUMMARY).with(client))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                .andExpect(content().json("{\"error\": \"Too Many Requests\"}"))
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.RETRY_AFTER);
+
+        /// Un token se recupera cada period / capacity = 30 s
+        long seconds = Long.parseLong(retryAfter);
+        assertTrue(seconds >= 1 && seconds <= 30, "Retry-After " + seconds);
+        assertEquals(rejectedBefore + 1, rejected("summary"));
+    }
+
+    @Test
+    void authenticatedClientsAreLimitedByUser() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertNotLimited(get(SUMMARY).with(user("user-a@library.test")).with(remoteAddr("10.0.0.1")));
+        }
+        /// Mismo usuario desde otra IP: mismo bucket
+        assertLimited(get(SUMMARY).with(user("user-a@library.test")).with(remoteAddr("10.0.0.2")));
+        /// Otro usuario desde la misma IP: bucket propio
+        assertNotLimited(get(SUMMARY).with(user("user-b@library.test")).with(remoteAddr("10.0.0.1")));
+    }
+
+    @Test
+    void anonymousClientsAreLimitedByIp() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            assertNotLimited(get(SUMMARY).with(remoteAddr("192.0.2.10")));
+        }
+        assertLimited(get(SUMMARY).with(remoteAddr("192.0.2.10")));
+        assertNotLimited(get(SUMMARY).with(remoteAddr("192.0.2.11")));
+        /// Un usuario autenticado desde la IP agotada no comparte su bucket
+        assertNotLimited(get(SUMMARY).with(user("anonymous-ip@library.test")).with(remoteAddr("192.0.2.10")));
+    }
+
+    private void assertNotLimited(MockHttpServletRequestBuilder request) throws Exception {
+        int status = mockMvc.perform(request).andReturn().getResponse().getStatus();
+        assertNotEquals(429, status);
+    }
+
+    private void assertLimited(MockHttpServletRequestBuilder request) throws Exception {
+        mockMvc.perform(request).andExpect(status().isTooManyRequests());
+    }
+
+    private double rejected(String policy) {
+        return meterRegistry.get("rate.limit.rejected").tag("policy", policy).counter().count();
+    }
+
+    private static RequestPostProcessor remoteAddr(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.library_directo.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba la ráfaga, la recarga y el tiempo de espera del token bucket,
+ * y que con muchos hilos a la vez no se conceden más tokens que la capacidad.
+ */
+class TokenBucketTest {
+
+    private static final long PERIOD = Duration.ofMinutes(1).toNanos();
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWait() {
+        long now = 1_000L;
+        TokenBucket bucket = new TokenBucket(5, PERIOD, now);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(now));
+        }
+
+        /// Un token se recupera cada period / capacity
+        assertEquals(PERIOD / 5, bucket.tryConsume(now));
+    }
+
+    @Test
+    void refillsContinuously() {
+        long now = 1_000L;
+        TokenBucket bucket = new TokenBucket(5, PERIOD, now);
+        for (int i = 0; i < 5; i++) {
+            bucket.tryConsume(now);
+        }
+
+        assertEquals(0, bucket.tryConsume(now + PERIOD / 5));
+        assertTrue(bucket.tryConsume(now + PERIOD / 5) > 0);
+
+        /// Tras un periodo completo sin peticiones vuelve a admitir la ráfaga entera
+        long later = now + 2 * PERIOD;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryConsume(later));
+        }
+        assertTrue(bucket.tryConsume(later) > 0);
+    }
+
+    @Test
+    void concurrentConsumersNeverExceedCapacity() throws Exception {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(100, PERIOD, now);
+        AtomicInteger granted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 1_000; i++) {
+                executor.submit(() -> {
+                    if (bucket.tryConsume(now) == 0) {
+                        granted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertEquals(100, granted.get());
+    }
+}
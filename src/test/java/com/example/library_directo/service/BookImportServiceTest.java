@@ -0,0 +1,147 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.BulkImportResult;
+import com.example.library_directo.dto.book.BulkImportResult.Status;
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que en la carga masiva una fila mala solo falla ella: los textos demasiado largos
+ * se rechazan al validar, y si el lote falla en la BD se reintenta fila a fila.
+ * Las comprobaciones contra la BD van en la transacción de escritura (primario), no en una de solo lectura.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class BookImportServiceTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User librarian;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        librarian = userRepository.save(User.builder()
+                .email("import@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        categoryId = categoryService.createCategory(new CreateCategoryRequest("Import", null)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("catalog_changes", "book_tombstones", "category_stats", "books", "categories", "users")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void tooLongColumnsAreInvalidRows() {
+        List<BulkImportResult> results = bookImportService.importBooks(List.of(
+                book("9780000000701", "Title"),
+                book("97800000007020", "Title"),
+                book("9780000000703", "x".repeat(256)),
+                book("9780000000704", "Title")
+        ), librarian);
+
+        assertEquals(List.of(Status.CREATED, Status.INVALID, Status.INVALID, Status.CREATED), statuses(results));
+        assertEquals(2, count());
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() {
+        /// Una restricción que la validación no conoce hace fallar el lote entero
+        jdbcTemplate.execute("alter table books add constraint chk_import_test check (title <> 'Rejected')");
+        try {
+            List<BulkImportResult> results = bookImportService.importBooks(List.of(
+                    book("9780000000711", "Title"),
+                    book("9780000000712", "Rejected"),
+                    book("9780000000713", "Title")
+            ), librarian);
+
+            assertEquals(List.of(Status.CREATED, Status.FAILED, Status.CREATED), statuses(results));
+            assertEquals(2, count());
+            assertEquals(2L, jdbcTemplate.queryForObject(
+                    "select book_count from category_stats where category_id = ?", Long.class, categoryId));
+        } finally {
+            jdbcTemplate.execute("alter table books drop constraint chk_import_test");
+        }
+    }
+
+    @Test
+    void checksRunInsideWriteTransaction() {
+        AbstractPlatformTransactionManager manager = (AbstractPlatformTransactionManager) transactionManager;
+        Collection<TransactionExecutionListener> originalListeners = manager.getTransactionExecutionListeners();
+        List<TransactionExecution> begun = new CopyOnWriteArrayList<>();
+        Thread testThread = Thread.currentThread();
+        List<TransactionExecutionListener> listeners = new ArrayList<>(originalListeners);
+        listeners.add(new TransactionExecutionListener() {
+            @Override
+            public void beforeBegin(TransactionExecution transaction) {
+                if (Thread.currentThread() == testThread) {
+                    begun.add(transaction);
+                }
+            }
+        });
+        manager.setTransactionExecutionListeners(listeners);
+        try {
+            bookImportService.importBooks(List.of(book("9780000000721", "Title")), librarian);
+        } finally {
+            manager.setTransactionExecutionListeners(new ArrayList<>(originalListeners));
+        }
+
+        /// La del lote y la relectura del índice de búsqueda, ambas de escritura: nada se lee de la réplica
+        assertEquals(2, begun.size());
+        assertTrue(begun.stream().noneMatch(TransactionExecution::isReadOnly));
+    }
+
+    private CreateBookRequest book(String isbn, String title) {
+        return new CreateBookRequest(isbn, title, "Author", null, null, null, null, 1, categoryId);
+    }
+
+    private long count() {
+        return jdbcTemplate.queryForObject("select count(*) from books", Long.class);
+    }
+
+    private static List<Status> statuses(List<BulkImportResult> results) {
+        return results.stream().map(BulkImportResult::getStatus).toList();
+    }
+}
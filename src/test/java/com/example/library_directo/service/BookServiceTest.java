@@ -0,0 +1,136 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba qué violaciones de restricciones se traducen a errores de dominio al guardar un libro:
+ * solo el ISBN repetido (también sin el nombre de restricción esperado) y la categoría borrada;
+ * el resto se relanzan tal cual. Borrar un libro con préstamos también es un error de dominio.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class BookServiceTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User librarian;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        librarian = userRepository.save(User.builder()
+                .email("violations@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        categoryId = categoryService.createCategory(new CreateCategoryRequest("Violations", null)).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("loans", "catalog_changes", "book_tombstones", "category_stats", "books", "categories", "users")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void duplicateIsbnIsDomainError() {
+        bookService.createBook(book(categoryId), librarian);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> bookService.createBook(book(categoryId), librarian));
+        assertEquals("Este ISBN ya existe. Verifique el ISBN.", error.getMessage());
+    }
+
+    @Test
+    void duplicateIsbnWithUnnamedConstraintIsDomainError() {
+        /// Como en una BD donde el índice único del ISBN tiene el nombre que le dio la BD
+        jdbcTemplate.execute("alter table books drop constraint uk_books_isbn");
+        jdbcTemplate.execute("alter table books add unique (isbn)");
+        try {
+            bookService.createBook(book(categoryId), librarian);
+
+            RuntimeException error = assertThrows(RuntimeException.class,
+                    () -> bookService.createBook(book(categoryId), librarian));
+            assertEquals("Este ISBN ya existe. Verifique el ISBN.", error.getMessage());
+        } finally {
+            String generated = jdbcTemplate.queryForObject("select constraint_name "
+                    + "from information_schema.table_constraints "
+                    + "where table_name = 'books' and constraint_type = 'UNIQUE'", String.class);
+            jdbcTemplate.execute("alter table books drop constraint \"" + generated + "\"");
+            jdbcTemplate.execute("alter table books add constraint uk_books_isbn unique (isbn)");
+        }
+    }
+
+    @Test
+    void categoryDeletedAfterCachingIsDomainError() {
+        /// La categoría queda en caché y se borra sin pasar por el servicio
+        categoryService.findCategoryById(categoryId);
+        jdbcTemplate.update("delete from category_stats where category_id = ?", categoryId);
+        jdbcTemplate.update("delete from categories where id = ?", categoryId);
+
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> bookService.createBook(book(categoryId), librarian));
+        assertEquals("Categoria incorrecta", error.getMessage());
+    }
+
+    @Test
+    void bookWithLoanHistoryIsNotDeleted() {
+        Long bookId = bookService.createBook(book(categoryId), librarian).getId();
+        loanService.returnLoan(loanService.borrow(bookId, librarian).getId());
+
+        RuntimeException error = assertThrows(RuntimeException.class, () -> bookService.deleteBook(bookId));
+        assertEquals("No se puede eliminar un libro con préstamos", error.getMessage());
+        assertEquals(1L, jdbcTemplate.queryForObject("select count(*) from books where id = ?", Long.class, bookId));
+    }
+
+    @Test
+    void otherViolationsAreRethrown() {
+        User missingCreator = User.builder()
+                .id(Long.MAX_VALUE)
+                .email("missing@library.test")
+                .name("Missing")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build();
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookService.createBook(book(categoryId), missingCreator));
+    }
+
+    private static CreateBookRequest book(Long categoryId) {
+        return new CreateBookRequest("9780000000601", "Title", "Author", null, null, null, null, 1, categoryId);
+    }
+}
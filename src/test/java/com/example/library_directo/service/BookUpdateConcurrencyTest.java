@@ -0,0 +1,151 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.entity.Book;
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que editar un libro no pisa las copias prestadas mientras tanto:
+ * el UPDATE de la entidad no incluye available_copies.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class BookUpdateConcurrencyTest {
+
+    private static final int COPIES = 20;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long bookId;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        User librarian = userRepository.save(User.builder()
+                .email("update-race@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        Category category = categoryRepository.save(Category.builder()
+                .name("Update race")
+                .build());
+        categoryId = category.getId();
+        bookId = bookRepository.save(Book.builder()
+                .isbn("9780000000201")
+                .title("Original title")
+                .author("Author")
+                .totalCopies(COPIES)
+                .availableCopies(COPIES)
+                .category(category)
+                .createdBy(librarian)
+                .build()).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from catalog_changes");
+        jdbcTemplate.update("delete from book_tombstones");
+        jdbcTemplate.update("delete from category_stats");
+        bookRepository.deleteAll();
+        categoryRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void updateDoesNotOverwriteCheckoutCommittedAfterLoad() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            /// La edición carga el libro; el préstamo se confirma después, en otra transacción
+            bookRepository.findWithCreatorById(bookId).orElseThrow();
+            CompletableFuture.runAsync(() -> bookService.checkoutCopy(bookId)).join();
+
+            bookService.updateBook(bookId, request("Edited title"));
+        });
+
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        assertEquals("Edited title", book.getTitle());
+        assertEquals(COPIES - 1, book.getAvailableCopies());
+    }
+
+    @Test
+    void concurrentUpdatesAndCheckoutsKeepAvailableCopies() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> checkouts = new ArrayList<>();
+            List<Future<?>> updates = new ArrayList<>();
+            for (int i = 0; i < THREADS / 2; i++) {
+                int n = i;
+                checkouts.add(executor.submit(() -> {
+                    start.await();
+                    bookService.checkoutCopy(bookId);
+                    return true;
+                }));
+                updates.add(executor.submit(() -> {
+                    start.await();
+                    bookService.updateBook(bookId, request("Title " + n));
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> update : updates) {
+                update.get();
+            }
+            int checkedOut = 0;
+            for (Future<Boolean> checkout : checkouts) {
+                if (checkout.get()) {
+                    checkedOut++;
+                }
+            }
+
+            assertEquals(COPIES - checkedOut, bookRepository.findById(bookId).orElseThrow().getAvailableCopies());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private CreateBookRequest request(String title) {
+        return new CreateBookRequest("9780000000201", title, "Author", null, null, null, null, COPIES, categoryId);
+    }
+}
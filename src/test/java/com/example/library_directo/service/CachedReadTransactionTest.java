@@ -0,0 +1,134 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.entity.Category;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.CategoryRepository;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que las lecturas cacheadas no abren transacción (ni piden conexión) cuando
+ * aciertan en la caché, y que al fallar leen en una transacción de solo lectura.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class CachedReadTransactionTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /// Transacciones empezadas por el hilo del test (las tareas programadas abren las suyas)
+    private final List<TransactionExecution> begun = new CopyOnWriteArrayList<>();
+
+    private Collection<TransactionExecutionListener> originalListeners;
+    private Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        categoryId = categoryRepository.save(Category.builder()
+                .name("Cached")
+                .build()).getId();
+        userRepository.save(User.builder()
+                .email("cached@library.test")
+                .name("Reader")
+                .role(Role.USER)
+                .provider(Provider.LOCAL)
+                .build());
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Thread testThread = Thread.currentThread();
+        AbstractPlatformTransactionManager manager = (AbstractPlatformTransactionManager) transactionManager;
+        originalListeners = manager.getTransactionExecutionListeners();
+        List<TransactionExecutionListener> listeners = new ArrayList<>(originalListeners);
+        listeners.add(new TransactionExecutionListener() {
+            @Override
+            public void beforeBegin(TransactionExecution transaction) {
+                if (Thread.currentThread() == testThread) {
+                    begun.add(transaction);
+                }
+            }
+        });
+        manager.setTransactionExecutionListeners(listeners);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((AbstractPlatformTransactionManager) transactionManager)
+                .setTransactionExecutionListeners(new ArrayList<>(originalListeners));
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void cacheHitsOpenNoTransaction() {
+        categoryService.getCategoryById(categoryId);
+        categoryService.getAllCategories();
+        userService.loadPrincipal("cached@library.test");
+        begun.clear();
+
+        for (int i = 0; i < 3; i++) {
+            categoryService.getCategoryById(categoryId);
+            categoryService.findCategoryById(categoryId);
+            categoryService.getAllCategories();
+            userService.loadPrincipal("cached@library.test");
+        }
+
+        assertTrue(begun.isEmpty(), begun.size() + " transacciones en aciertos de caché");
+    }
+
+    @Test
+    void cacheMissReadsInReadOnlyTransaction() {
+        categoryService.getCategoryById(categoryId);
+        userService.loadPrincipal("cached@library.test");
+
+        assertEquals(2, begun.size());
+        assertTrue(begun.stream().allMatch(TransactionExecution::isReadOnly));
+    }
+
+    @Test
+    void deltaTokensOpenNoTransaction() {
+        bookService.resolveDeltaSince(LocalDateTime.now().minusMinutes(5));
+        bookService.nextDeltaToken();
+
+        assertTrue(begun.isEmpty(), begun.size() + " transacciones sin acceso a BD");
+    }
+}
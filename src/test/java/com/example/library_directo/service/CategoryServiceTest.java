@@ -0,0 +1,55 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que la caché de categorías se invalida tras el commit de la escritura,
+ * así una lectura concurrente anterior al commit no deja el valor antiguo en caché.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class CategoryServiceTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("catalog_changes", "category_stats", "categories")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void readBeforeCommitIsNotLeftInCache() {
+        Long id = categoryService.createCategory(new CreateCategoryRequest("Before", null)).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryService.updateCategory(id, new CreateCategoryRequest("After", null));
+            /// Otra petición lee la categoría antes del commit y la cachea con el nombre anterior
+            assertEquals("Before", CompletableFuture.supplyAsync(() -> categoryService.getCategoryById(id))
+                    .join()
+                    .getName());
+        });
+
+        assertEquals("After", categoryService.getCategoryById(id).getName());
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.dto.loan.LoanDto;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.BookRepository;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Comprueba que los contadores de category_stats coinciden con un GROUP BY sobre books
+ * tras cada una de las escrituras que los mantienen, y que las actualizaciones de varias
+ * categorías en transacciones cruzadas se esperan en lugar de interbloquearse.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class CategoryStatsServiceTest {
+
+    private static final String STATS_SQL = "select category_id, book_count, total_copies, available_copies "
+            + "from category_stats order by category_id";
+
+    private static final String GROUP_BY_SQL = "select c.id, count(b.id), coalesce(sum(b.total_copies), 0), "
+            + "coalesce(sum(b.available_copies), 0) "
+            + "from categories c left join books b on b.category_id = c.id group by c.id order by c.id";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private CategoryStatsService categoryStatsService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User librarian;
+
+    @BeforeEach
+    void setUp() {
+        librarian = userRepository.save(User.builder()
+                .email("stats@library.test")
+                .name("Librarian")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("loans", "catalog_changes", "book_tombstones", "category_stats",
+                "books", "categories", "users")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void countersMatchBooksAfterEveryMutation() {
+        Long fiction = categoryService.createCategory(new CreateCategoryRequest("Stats fiction", null)).getId();
+        Long science = categoryService.createCategory(new CreateCategoryRequest("Stats science", null)).getId();
+        assertCountersMatchBooks();
+
+        Long quijote = bookService.createBook(book("9780000000401", 5, fiction), librarian).getId();
+        Long regenta = bookService.createBook(book("9780000000402", 3, fiction), librarian).getId();
+        Long cosmos = bookService.createBook(book("9780000000403", 2, science), librarian).getId();
+        assertCountersMatchBooks();
+
+        bookService.checkoutCopy(quijote);
+        bookService.checkoutCopy(quijote);
+        bookService.checkoutCopy(regenta);
+        assertCountersMatchBooks();
+
+        bookService.returnCopy(quijote);
+        assertCountersMatchBooks();
+
+        LoanDto loan = loanService.borrow(cosmos, librarian);
+        assertCountersMatchBooks();
+        loanService.returnLoan(loan.getId());
+        assertCountersMatchBooks();
+
+        /// Cambio de copias en la misma categoría y traslado con una copia prestada
+        bookService.updateBook(quijote, book("9780000000401", 8, fiction));
+        assertCountersMatchBooks();
+        bookService.updateBook(regenta, book("9780000000402", 4, science));
+        assertCountersMatchBooks();
+
+        /// Traslado de un libro cargado antes de que se confirme otro préstamo
+        transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.findWithCreatorById(quijote).orElseThrow();
+            CompletableFuture.runAsync(() -> bookService.checkoutCopy(quijote)).join();
+
+            bookService.updateBook(quijote, book("9780000000401", 8, science));
+        });
+        assertCountersMatchBooks();
+
+        /// Carga masiva con una fila válida por categoría y un ISBN repetido
+        bookImportService.importBooks(List.of(
+                book("9780000000404", 7, fiction),
+                book("9780000000405", 1, science),
+                book("9780000000401", 9, science)), librarian);
+        assertCountersMatchBooks();
+
+        /// Un libro sin historial de préstamos y con una copia fuera
+        bookService.deleteBook(regenta);
+        assertCountersMatchBooks();
+
+        Long empty = categoryService.createCategory(new CreateCategoryRequest("Stats empty", null)).getId();
+        assertCountersMatchBooks();
+        categoryService.deleteCategory(empty);
+        assertCountersMatchBooks();
+    }
+
+    @Test
+    void crossedCategoryUpdatesWaitInsteadOfDeadlocking() throws Exception {
+        Long first = categoryService.createCategory(new CreateCategoryRequest("Stats first", null)).getId();
+        Long second = categoryService.createCategory(new CreateCategoryRequest("Stats second", null)).getId();
+        AtomicReference<CompletableFuture<Void>> crossed = new AtomicReference<>();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            categoryStatsService.applyDelta(first, 1, 1, 1);
+
+            /// Otra transacción toca las dos categorías, pidiendo primero la segunda
+            Map<Long, long[]> deltas = new LinkedHashMap<>();
+            deltas.put(second, new long[]{1, 1, 1});
+            deltas.put(first, new long[]{1, 1, 1});
+            crossed.set(CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(
+                    other -> categoryStatsService.applyDeltas(deltas))));
+            sleep(200);
+            assertFalse(crossed.get().isDone());
+
+            /// Espera por la primera sin haber bloqueado la segunda: esta transacción puede seguir
+            categoryStatsService.applyDelta(second, 1, 1, 1);
+        });
+
+        crossed.get().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of(first, 2L, 2L, 2L), List.of(second, 2L, 2L, 2L)), rows(STATS_SQL));
+    }
+
+    private void assertCountersMatchBooks() {
+        List<List<Long>> expected = rows(GROUP_BY_SQL);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, rows(STATS_SQL));
+    }
+
+    private List<List<Long>> rows(String sql) {
+        return jdbcTemplate.query(sql, (rs, rowNum) ->
+                List.of(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CreateBookRequest book(String isbn, int copies, Long categoryId) {
+        return new CreateBookRequest(isbn, "Title " + isbn, "Author", null, null, null, null, copies, categoryId);
+    }
+}
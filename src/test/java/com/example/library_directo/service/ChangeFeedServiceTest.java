@@ -0,0 +1,244 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.change.CatalogChangeDto;
+import com.example.library_directo.dto.change.ChangeFeedDto;
+import com.example.library_directo.entity.CatalogEntityType;
+import com.example.library_directo.entity.ChangeOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba la lectura del feed de cambios: corte en los huecos de la secuencia,
+ * último cambio por entidad, paginación, aviso tras la confirmación y compactación.
+ * Las filas se insertan con secuencias explícitas para poder dejar huecos.
+ */
+@SpringBootTest(properties = {
+        "app.changes.gap-grace=300ms",
+        "app.changes.poll-interval=10s"
+})
+@ActiveProfiles("it")
+class ChangeFeedServiceTest {
+
+    private static final Duration NO_WAIT = Duration.ZERO;
+
+    /// Cada test usa su propio rango de secuencias: los huecos vistos se recuerdan entre lecturas
+    private static final AtomicLong NEXT_BASE = new AtomicLong(1_000_000);
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from catalog_changes");
+        base = NEXT_BASE.getAndAdd(1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from catalog_changes");
+        jdbcTemplate.update("update catalog_change_compaction set watermark = 0");
+    }
+
+    @Test
+    void stopsAtGapUntilItIsFilled() {
+        insert(1, CatalogEntityType.BOOK, 1, LocalDateTime.now());
+        insert(2, CatalogEntityType.BOOK, 2, LocalDateTime.now());
+        insert(4, CatalogEntityType.BOOK, 4, LocalDateTime.now());
+
+        ChangeFeedDto beforeCommit = changeFeedService.getChanges(base, 10, NO_WAIT);
+        assertEquals(List.of(base + 1, base + 2), sequences(beforeCommit));
+        assertEquals(base + 2, beforeCommit.getNextSince());
+        assertFalse(beforeCommit.isHasMore());
+
+        /// La transacción con la secuencia 3 confirma: el feed continúa sin saltarse nada
+        insert(3, CatalogEntityType.BOOK, 3, LocalDateTime.now());
+        ChangeFeedDto afterCommit = changeFeedService.getChanges(base + 2, 10, NO_WAIT);
+        assertEquals(List.of(base + 3, base + 4), sequences(afterCommit));
+        assertEquals(base + 4, afterCommit.getNextSince());
+    }
+
+    @Test
+    void skipsGapObservedForLongerThanGrace() throws Exception {
+        insert(1, CatalogEntityType.BOOK, 1, LocalDateTime.now());
+        /// Aunque la fila posterior al hueco sea antigua, el hueco cuenta desde que se ve
+        insert(3, CatalogEntityType.BOOK, 3, LocalDateTime.now().minusDays(1));
+
+        assertEquals(List.of(base + 1), sequences(changeFeedService.getChanges(base, 10, NO_WAIT)));
+        ChangeFeedDto waiting = changeFeedService.getChanges(base + 1, 10, NO_WAIT);
+        assertTrue(waiting.getChanges().isEmpty());
+        assertEquals(base + 1, waiting.getNextSince());
+
+        Thread.sleep(400);
+
+        ChangeFeedDto settled = changeFeedService.getChanges(base + 1, 10, NO_WAIT);
+        assertEquals(List.of(base + 3), sequences(settled));
+        assertEquals(base + 3, settled.getNextSince());
+    }
+
+    @Test
+    void keepsOnlyLatestChangePerEntity() {
+        insert(1, CatalogEntityType.BOOK, 10, LocalDateTime.now());
+        insert(2, CatalogEntityType.BOOK, 11, LocalDateTime.now());
+        insert(3, CatalogEntityType.BOOK, 10, LocalDateTime.now());
+        insert(4, CatalogEntityType.CATEGORY, 10, LocalDateTime.now());
+
+        ChangeFeedDto feed = changeFeedService.getChanges(base, 10, NO_WAIT);
+
+        assertEquals(List.of(base + 2, base + 3, base + 4), sequences(feed));
+        assertEquals(CatalogEntityType.BOOK, feed.getChanges().get(1).getEntityType());
+        assertEquals(10L, feed.getChanges().get(1).getEntityId());
+        assertEquals(base + 4, feed.getNextSince());
+    }
+
+    @Test
+    void pagesWithNextSinceAndHasMore() {
+        for (int i = 1; i <= 5; i++) {
+            insert(i, CatalogEntityType.BOOK, i, LocalDateTime.now());
+        }
+
+        ChangeFeedDto first = changeFeedService.getChanges(base, 2, NO_WAIT);
+        assertEquals(List.of(base + 1, base + 2), sequences(first));
+        assertTrue(first.isHasMore());
+
+        ChangeFeedDto second = changeFeedService.getChanges(first.getNextSince(), 2, NO_WAIT);
+        assertEquals(List.of(base + 3, base + 4), sequences(second));
+        assertTrue(second.isHasMore());
+
+        ChangeFeedDto third = changeFeedService.getChanges(second.getNextSince(), 2, NO_WAIT);
+        assertEquals(List.of(base + 5), sequences(third));
+        assertFalse(third.isHasMore());
+
+        ChangeFeedDto empty = changeFeedService.getChanges(third.getNextSince(), 2, NO_WAIT);
+        assertTrue(empty.getChanges().isEmpty());
+        assertFalse(empty.isHasMore());
+        assertEquals(base + 5, empty.getNextSince());
+    }
+
+    @Test
+    void wakesUpWaitingConsumerOnlyAfterCommit() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                changeFeedService.record(CatalogEntityType.BOOK, 1L, ChangeOperation.CREATED));
+        long since = jdbcTemplate.queryForObject("select max(id) from catalog_changes", Long.class);
+
+        /// Con poll-interval de 10 s, solo el aviso tras la confirmación puede despertar al consumidor
+        CompletableFuture<ChangeFeedDto> waiting = CompletableFuture.supplyAsync(
+                () -> changeFeedService.getChanges(since, 10, Duration.ofSeconds(10)));
+        Thread.sleep(200);
+        assertFalse(waiting.isDone());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            changeFeedService.record(CatalogEntityType.BOOK, 2L, ChangeOperation.UPDATED);
+            sleep(300);
+            assertFalse(waiting.isDone());
+        });
+
+        ChangeFeedDto feed = waiting.get(2, TimeUnit.SECONDS);
+        assertEquals(1, feed.getChanges().size());
+        assertEquals(2L, feed.getChanges().get(0).getEntityId());
+    }
+
+    @Test
+    void compactionKeepsLatestChangePerEntity() {
+        LocalDateTime old = LocalDateTime.now().minusDays(8);
+        insert(1, CatalogEntityType.BOOK, 1, old);
+        insert(2, CatalogEntityType.BOOK, 1, old);
+        insert(3, CatalogEntityType.BOOK, 2, old);
+        insert(4, CatalogEntityType.BOOK, 1, LocalDateTime.now());
+        insert(5, CatalogEntityType.BOOK, 3, LocalDateTime.now());
+        insert(6, CatalogEntityType.BOOK, 3, LocalDateTime.now());
+
+        changeFeedService.compact();
+
+        /// Se borran los cambios antiguos reemplazados; el último de cada entidad y los recientes quedan
+        List<Long> remaining = jdbcTemplate.queryForList("select id from catalog_changes order by id", Long.class);
+        assertEquals(List.of(base + 3, base + 4, base + 5, base + 6), remaining);
+    }
+
+    @Test
+    void readsFromStartPastCompactionHolesWithoutWaiting() {
+        LocalDateTime old = LocalDateTime.now().minusDays(8);
+        insert(1, CatalogEntityType.BOOK, 1, old);
+        insert(2, CatalogEntityType.BOOK, 2, old);
+        insert(3, CatalogEntityType.BOOK, 1, old);
+        insert(4, CatalogEntityType.BOOK, 2, old);
+        insert(5, CatalogEntityType.BOOK, 3, old);
+        insert(6, CatalogEntityType.BOOK, 1, LocalDateTime.now());
+        insert(7, CatalogEntityType.BOOK, 2, LocalDateTime.now());
+        insert(8, CatalogEntityType.BOOK, 4, LocalDateTime.now());
+
+        changeFeedService.compact();
+
+        /// Un consumidor nuevo recorre el feed desde 0 sin quedarse en los huecos (gap-grace es 300 ms)
+        List<Long> read = new ArrayList<>();
+        ChangeFeedDto feed;
+        long since = 0;
+        do {
+            feed = changeFeedService.getChanges(since, 2, NO_WAIT);
+            read.addAll(sequences(feed));
+            since = feed.getNextSince();
+        } while (feed.isHasMore());
+
+        assertEquals(List.of(base + 5, base + 6, base + 7, base + 8), read);
+        assertEquals(base + 8, since);
+    }
+
+    @Test
+    void holeAboveWatermarkStillWaits() {
+        LocalDateTime old = LocalDateTime.now().minusDays(8);
+        insert(1, CatalogEntityType.BOOK, 1, old);
+        insert(2, CatalogEntityType.BOOK, 1, old);
+        changeFeedService.compact();
+        /// La secuencia 3 puede ser una transacción en curso: no la cubre la compactación
+        insert(4, CatalogEntityType.BOOK, 4, LocalDateTime.now());
+
+        ChangeFeedDto feed = changeFeedService.getChanges(0, 10, NO_WAIT);
+        assertEquals(List.of(base + 2), sequences(feed));
+        assertEquals(base + 2, feed.getNextSince());
+        assertFalse(feed.isHasMore());
+    }
+
+    private void insert(int offset, CatalogEntityType entityType, long entityId, LocalDateTime changedAt) {
+        jdbcTemplate.update("insert into catalog_changes (id, entity_type, entity_id, operation, changed_at) "
+                        + "values (?, ?, ?, ?, ?)",
+                base + offset, entityType.name(), entityId, ChangeOperation.UPDATED.name(), Timestamp.valueOf(changedAt));
+    }
+
+    private static List<Long> sequences(ChangeFeedDto feed) {
+        return feed.getChanges().stream().map(CatalogChangeDto::getSequence).toList();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.dto.book.CreateBookRequest;
+import com.example.library_directo.dto.category.CreateCategoryRequest;
+import com.example.library_directo.dto.loan.LoanDto;
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Comprueba que cada renovación amplía el préstamo desde su fecha de devolución
+ * y que no se renueva más allá del máximo.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class LoanServiceTest {
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User reader;
+    private Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        reader = userRepository.save(User.builder()
+                .email("loans@library.test")
+                .name("Reader")
+                .role(Role.LIBRARIAN)
+                .provider(Provider.LOCAL)
+                .build());
+        Long categoryId = categoryService.createCategory(new CreateCategoryRequest("Loans", null)).getId();
+        bookId = bookService.createBook(new CreateBookRequest(
+                "9780000000801", "Title", "Author", null, null, null, null, 1, categoryId), reader).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : List.of("loans", "catalog_changes", "book_tombstones", "category_stats",
+                "books", "categories", "users")) {
+            jdbcTemplate.update("delete from " + table);
+        }
+    }
+
+    @Test
+    void renewalExtendsFromDueDate() {
+        LoanDto loan = loanService.borrow(bookId, reader);
+        LocalDateTime dueDate = LocalDateTime.now().plusDays(3).truncatedTo(ChronoUnit.SECONDS);
+        jdbcTemplate.update("update loans set due_date = ? where id = ?", Timestamp.valueOf(dueDate), loan.getId());
+
+        loanService.renew(loan.getId(), reader);
+        assertEquals(dueDate.plusDays(14), dueDate(loan.getId()));
+
+        loanService.renew(loan.getId(), reader);
+        assertEquals(dueDate.plusDays(28), dueDate(loan.getId()));
+
+        assertThrows(RuntimeException.class, () -> loanService.renew(loan.getId(), reader));
+    }
+
+    private LocalDateTime dueDate(Long loanId) {
+        return jdbcTemplate.queryForObject("select due_date from loans where id = ?", LocalDateTime.class, loanId);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.library_directo.service;
+
+import com.example.library_directo.entity.Provider;
+import com.example.library_directo.entity.Role;
+import com.example.library_directo.entity.User;
+import com.example.library_directo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba que al guardar un usuario se invalidan sus datos de autenticación cacheados,
+ * también los del email anterior cuando el email cambia.
+ */
+@SpringBootTest
+@ActiveProfiles("it")
+class UserServiceTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void emailChangeEvictsPrincipalCachedUnderPreviousEmail() {
+        User user = userRepository.save(user("old@library.test"));
+        assertTrue(userService.loadPrincipal("old@library.test").isPresent());
+
+        user.setEmail("new@library.test");
+        userService.save(user);
+
+        assertTrue(userService.loadPrincipal("old@library.test").isEmpty());
+        assertEquals("new@library.test", userService.loadPrincipal("new@library.test").orElseThrow().email());
+    }
+
+    @Test
+    void emailChangeOnManagedEntityEvictsPreviousEmail() {
+        Long id = userRepository.save(user("managed-old@library.test")).getId();
+        assertTrue(userService.loadPrincipal("managed-old@library.test").isPresent());
+
+        /// La entidad gestionada ya tiene el email nuevo antes de llegar a save
+        transactionTemplate.executeWithoutResult(status -> {
+            User managed = userRepository.findById(id).orElseThrow();
+            managed.setEmail("managed-new@library.test");
+            userService.save(managed);
+        });
+
+        assertTrue(userService.loadPrincipal("managed-old@library.test").isEmpty());
+    }
+
+    private static User user(String email) {
+        return User.builder()
+                .email(email)
+                .name("Reader")
+                .role(Role.USER)
+                .provider(Provider.LOCAL)
+                .build();
+    }
+}
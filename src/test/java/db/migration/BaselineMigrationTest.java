@@ -0,0 +1,89 @@
+package db.migration;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba las migraciones sobre una BD H2 en memoria como las que creaba ddl-auto=update:
+ * Flyway la registra como versión 1 y las migraciones posteriores crean lo que falta
+ * y dan nombre fijo a las restricciones de books, igual que en una BD nueva.
+ */
+class BaselineMigrationTest {
+
+    @Test
+    void baselinedDatabaseGetsLoansAndNamedConstraints() {
+        DataSource dataSource = database("baselined");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        /// Tablas y restricciones con los nombres que generaba Hibernate
+        jdbcTemplate.execute("create table users (id bigint not null auto_increment, email varchar(255) not null, "
+                + "password varchar(255), name varchar(255) not null, picture varchar(500), "
+                + "role enum('USER','LIBRARIAN','ADMIN') not null, provider enum('GOOGLE','LOCAL') not null, "
+                + "created_at datetime(6), primary key (id), constraint UK6dotkott2kjsp8vw4d0m25fb7 unique (email))");
+        jdbcTemplate.execute("create table categories (id bigint not null auto_increment, name varchar(255) not null, "
+                + "description text, created_at datetime(6), primary key (id), "
+                + "constraint UKt8o6pivur7nn124jehx7cygw5 unique (name))");
+        jdbcTemplate.execute("create table books (id bigint not null auto_increment, isbn varchar(13) not null, "
+                + "title varchar(255) not null, author varchar(255) not null, publisher varchar(255), "
+                + "publication_year int, description varchar(255), cover_image varchar(500), "
+                + "total_copies int not null, available_copies int not null, category_id bigint not null, "
+                + "created_by bigint not null, created_at datetime(6), updated_at datetime(6), primary key (id), "
+                + "constraint UKkibbepcitr0a3cpk3rfr7nihn unique (isbn), "
+                + "constraint FKleqa3hhc0uhfvurq6mil47xk0 foreign key (category_id) references categories (id), "
+                + "constraint FKbpeuodjx1rtmr2wgbtdkm9xq5 foreign key (created_by) references users (id))");
+
+        migrate(dataSource, true);
+
+        assertTrue(tables(jdbcTemplate).contains("loans"));
+        List<String> constraints = bookConstraints(jdbcTemplate);
+        assertTrue(constraints.containsAll(List.of("uk_books_isbn", "fk_books_category")), constraints.toString());
+        /// Las generadas por Hibernate se sustituyen, no se duplican
+        assertFalse(constraints.contains("ukkibbepcitr0a3cpk3rfr7nihn"));
+        assertFalse(constraints.contains("fkleqa3hhc0uhfvurq6mil47xk0"));
+        assertEquals(4, constraints.size());
+    }
+
+    @Test
+    void newDatabaseGetsNamedConstraints() {
+        DataSource dataSource = database("new");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        migrate(dataSource, false);
+
+        assertTrue(tables(jdbcTemplate).contains("loans"));
+        List<String> constraints = bookConstraints(jdbcTemplate);
+        assertTrue(constraints.containsAll(List.of("uk_books_isbn", "fk_books_category")), constraints.toString());
+        assertEquals(4, constraints.size());
+    }
+
+    private static void migrate(DataSource dataSource, boolean baselineOnMigrate) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(baselineOnMigrate)
+                .load()
+                .migrate();
+    }
+
+    private static List<String> tables(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("select table_name from information_schema.tables "
+                + "where table_schema = 'public'", String.class);
+    }
+
+    private static List<String> bookConstraints(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList("select constraint_name from information_schema.table_constraints "
+                + "where table_schema = 'public' and table_name = 'books'", String.class);
+    }
+
+    private static DataSource database(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:migration-" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}